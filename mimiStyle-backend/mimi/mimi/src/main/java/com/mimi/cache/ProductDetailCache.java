@@ -0,0 +1,89 @@
+package com.mimi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mimi.dto.response.ProductResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache read-through cho GET /api/products/{id}: giữ ProductResponse đã dựng sẵn,
+ * giới hạn theo dung lượng ước tính (byte) với chính sách loại bỏ W-TinyLFU của Caffeine.
+ * Các đường ghi (sửa/xóa sản phẩm, thêm/xóa ảnh) phải gọi invalidate với đúng id.
+ */
+@Component
+public class ProductDetailCache {
+
+    private final Cache<Long, ProductResponse> cache;
+
+    public ProductDetailCache(
+            @Value("${cache.product-detail.max-bytes:33554432}") long maxBytes,
+            @Value("${cache.product-detail.ttl-minutes:30}") long ttlMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, ProductResponse response) -> estimateSize(response))
+                // TTL chỉ là lưới an toàn cho thay đổi không đi qua invalidate (ví dụ đổi tên người bán)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public ProductResponse get(Long productId, Function<Long, ProductResponse> loader) {
+        return cache.get(productId, loader);
+    }
+
+    /**
+     * Xóa entry ngay, và nếu đang trong transaction thì xóa lần nữa sau commit để
+     * một request đọc xen giữa không nạp lại dữ liệu cũ vào cache.
+     */
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(productId);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+
+    private static int estimateSize(ProductResponse response) {
+        int size = 256;
+        size += sizeOf(response.getName());
+        size += sizeOf(response.getDescription());
+        size += sizeOf(response.getAddressContact());
+        size += sizeOf(response.getSellerName());
+        size += sizeOf(response.getCategoryName());
+        if (response.getImages() != null) {
+            for (String image : response.getImages()) {
+                size += 16 + sizeOf(image);
+            }
+        }
+        return size;
+    }
+
+    private static int sizeOf(String value) {
+        return value == null ? 0 : 40 + value.length() * 2;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mimi.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Pool xử lý ảnh nền (tạo thumbnail/resize). Khi hàng đợi đầy thì bỏ qua tác vụ:
+     * ảnh gốc vẫn được phục vụ thay cho bản thu nhỏ nên không cần chặn request upload.
+     */
+    @Bean(name = "imageTaskExecutor")
+    public ThreadPoolTaskExecutor imageTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool xử lý song song các file trong một request upload nhiều ảnh.
+     * Khi đầy thì thread của request tự chạy tác vụ (CallerRuns) để upload không bị mất file.
+     */
+    @Bean(name = "uploadTaskExecutor")
+    public ThreadPoolTaskExecutor uploadTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool chạy StreamingResponseBody (export NDJSON...). Có bean Executor riêng nên Spring Boot không tạo
+     * applicationTaskExecutor mặc định; pool này được gắn cho MVC async trong WebAsyncConfig.
+     */
+    @Bean(name = "mvcAsyncTaskExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -52,6 +52,9 @@ public class SecurityConfig {
         configuration.setAllowedMethods(List.of(
                 "GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        // Cho phép frontend khác origin đọc các header số lượng của gian hàng và tên file export
+        configuration.setExposedHeaders(List.of("X-Total-Count", "X-Active-Count", "X-Sold-Count",
+                "Content-Disposition"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -0,0 +1,26 @@
+package com.mimi.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    /** Export lớn có thể chạy lâu hơn timeout async mặc định của container. */
+    private static final long ASYNC_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final ThreadPoolTaskExecutor mvcAsyncTaskExecutor;
+
+    public WebAsyncConfig(@Qualifier("mvcAsyncTaskExecutor") ThreadPoolTaskExecutor mvcAsyncTaskExecutor) {
+        this.mvcAsyncTaskExecutor = mvcAsyncTaskExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncTaskExecutor);
+        configurer.setDefaultTimeout(ASYNC_TIMEOUT_MS);
+    }
+}
@@ -1,14 +1,28 @@
 package com.mimi.controller;
 
 import com.mimi.domain.Order;
+import com.mimi.domain.enums.OrderStatus;
+import com.mimi.dto.request.BulkUpdateOrderStatusRequest;
 import com.mimi.dto.request.CreateOrderRequest;
 import com.mimi.dto.request.UpdateOrderStatusRequest;
 import com.mimi.dto.response.OrderResponse;
+import com.mimi.idempotency.IdempotencyKeyConflictException;
+import com.mimi.idempotency.OrderIdempotencyStore;
+import com.mimi.outbox.OutboxDispatcher;
+import com.mimi.rental.OverdueRentalDetector;
+import com.mimi.repository.projection.SellerOrderView;
 import com.mimi.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -17,18 +31,62 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+
     private final OrderService orderService;
+    private final OrderIdempotencyStore orderIdempotencyStore;
+    private final OverdueRentalDetector overdueRentalDetector;
+    private final OutboxDispatcher outboxDispatcher;
 
+    /**
+     * Tạo đơn hàng. Nếu client gửi header Idempotency-Key thì các lần gửi lại cùng key và cùng body
+     * nhận lại đơn đã tạo (header Idempotent-Replayed: true) thay vì tạo đơn mới;
+     * cùng key nhưng body khác trả 422.
+     */
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody CreateOrderRequest request) {
-        Order order = orderService.createOrder(request);
-        return ResponseEntity.ok(order);
+    public ResponseEntity<?> createOrder(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody CreateOrderRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            Order order = orderService.createOrder(request);
+            return ResponseEntity.ok(order);
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body("Idempotency-Key tối đa " + MAX_IDEMPOTENCY_KEY_LENGTH + " ký tự");
+        }
+
+        try {
+            OrderIdempotencyStore.Outcome outcome = orderIdempotencyStore.execute(
+                    idempotencyKey, orderIdempotencyStore.hash(request), () -> orderService.createOrder(request));
+            if (!outcome.replayed()) {
+                return ResponseEntity.ok(outcome.createdOrder());
+            }
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", "true")
+                    .body(orderService.getOrderById(outcome.orderId()));
+        } catch (IdempotencyKeyConflictException ex) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_CONTENT).body(ex.getMessage());
+        }
     }
 
     @PatchMapping("/{id}/status")
     public ResponseEntity<Map<String, Object>> updateOrderStatus(@PathVariable Long id, @RequestBody UpdateOrderStatusRequest request) {
-        orderService.updateOrderStatus(id, request);
-        return ResponseEntity.ok(Map.of("success", true, "message", "Đã cập nhật trạng thái đơn hàng"));
+        try {
+            orderService.updateOrderStatus(id, request);
+            return ResponseEntity.ok(Map.of("success", true, "message", "Đã cập nhật trạng thái đơn hàng"));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", ex.getMessage()));
+        }
+    }
+
+    /** Đổi trạng thái nhiều đơn một lần; trả kết quả riêng cho từng đơn. */
+    @PatchMapping("/status")
+    public ResponseEntity<?> updateOrderStatuses(@RequestBody BulkUpdateOrderStatusRequest request) {
+        try {
+            return ResponseEntity.ok(orderService.updateOrderStatuses(request.getOrderIds(), request.getStatus()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
     }
 
     @GetMapping("/me")
@@ -37,16 +95,99 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    /** Lịch sử đơn của người mua, phân trang theo cursor (truyền lại nextCursor để lấy trang sau). */
+    @GetMapping("/me/page")
+    public ResponseEntity<?> getMyOrderPage(
+            @RequestParam Long buyerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(orderService.getOrderHistoryPage(buyerId, cursor, size));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /**
+     * Hộp đơn của người bán: mỗi đơn có sản phẩm của người bán là một dòng, mới nhất trước,
+     * lọc theo status và khoảng ngày tạo [from, to]. Tổng số đơn trả về qua header X-Total-Count.
+     */
+    @GetMapping("/seller/{sellerId}")
+    public ResponseEntity<?> getSellerOrders(
+            @PathVariable Long sellerId,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        Page<SellerOrderView> orders = orderService.getSellerOrderPage(
+                sellerId,
+                status,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                page,
+                size);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(orders.getTotalElements()))
+                .body(orders.getContent());
+    }
+
     @GetMapping("/all")
     public ResponseEntity<List<OrderResponse>> getAllOrders() {
         List<OrderResponse> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
     }
 
+    /** Tiến độ và kết quả lần chạy gần nhất của job đánh dấu đơn thuê quá hạn. */
+    @GetMapping("/overdue/metrics")
+    public ResponseEntity<Map<String, Object>> getOverdueJobMetrics() {
+        return ResponseEntity.ok(overdueRentalDetector.metrics());
+    }
+
+    /** Chạy ngay một lượt quét đơn thuê quá hạn (thay cho truy vấn thủ công). */
+    @PostMapping("/overdue/run")
+    public ResponseEntity<Map<String, Object>> runOverdueJob() {
+        if (!overdueRentalDetector.run()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("success", false, "message", "Job đang chạy"));
+        }
+        return ResponseEntity.ok(overdueRentalDetector.metrics());
+    }
+
+    /** Tình trạng outbox sự kiện đơn hàng: số event tồn, độ trễ giao, số lần thử lại/thất bại. */
+    @GetMapping("/events/outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxStats() {
+        return ResponseEntity.ok(outboxDispatcher.stats());
+    }
+
+    /**
+     * Export toàn bộ đơn hàng dạng NDJSON (mỗi dòng một đơn), ghi dần khi đọc từ DB thay vì dựng cả danh sách.
+     * Lọc theo status và khoảng ngày tạo [from, to] (yyyy-MM-dd).
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        StreamingResponseBody body = out -> orderService.exportOrders(
+                status,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.ndjson\"")
+                .body(body);
+    }
+
     @PostMapping("/{id}/return")
     public ResponseEntity<Map<String, Object>> returnRentalOrder(@PathVariable Long id) {
-        orderService.returnRentalOrder(id);
-        return ResponseEntity.ok(Map.of("success", true, "message", "Đã xác nhận trả hàng"));
+        try {
+            orderService.returnRentalOrder(id);
+            return ResponseEntity.ok(Map.of("success", true, "message", "Đã xác nhận trả hàng"));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", ex.getMessage()));
+        }
     }
 
     @PostMapping("/{id}/refund-deposit")
@@ -1,32 +1,54 @@
 package com.mimi.controller;
 
+import com.mimi.cache.ProductDetailCache;
 import com.mimi.domain.Product;
 import com.mimi.domain.ProductImage;
+import com.mimi.domain.enums.ProductStatus;
+import com.mimi.domain.enums.TradeType;
+import com.mimi.dto.response.CursorPageResponse;
+import com.mimi.dto.response.FacetedProductResponse;
 import com.mimi.dto.response.ProductResponse;
+import com.mimi.dto.response.RentalAvailabilityResponse;
+import com.mimi.dto.response.SellerProductCounts;
+import com.mimi.rental.RentalAvailabilityIndex;
 import com.mimi.repository.ProductImageRepository;
+import com.mimi.search.ProductFacetFilter;
+import com.mimi.service.ProductImportService;
+import com.mimi.service.ProductResponseAssembler;
 import com.mimi.service.ProductService;
+import com.mimi.storage.ContentAddressedStorage;
+import com.mimi.storage.ImageFileResponses;
+import com.mimi.storage.ImageVariantService;
 
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @RestController
 @RequestMapping("/api/products")
@@ -35,6 +57,14 @@ public class ProductController {
 
     private final ProductService productService;
     private final ProductImageRepository productImageRepository;
+    private final ProductResponseAssembler productResponseAssembler;
+    private final ProductDetailCache productDetailCache;
+    private final ImageVariantService imageVariantService;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final ProductImportService productImportService;
+    private final RentalAvailabilityIndex rentalAvailabilityIndex;
+    @Qualifier("uploadTaskExecutor")
+    private final Executor uploadTaskExecutor;
     @Value("${file.upload-dir}")
     private String uploadDir;
 
@@ -46,26 +76,136 @@ public class ProductController {
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<ProductResponse>> getUserProducts(@PathVariable Long userId) {
         List<Product> products = productService.getProductsByUserId(userId);
-        List<ProductResponse> productResponses = products.stream().map(this::mapToProductResponse)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productResponses);
+        return ResponseEntity.ok(productResponseAssembler.toResponses(products));
+    }
+
+    /**
+     * Gian hàng của người bán, phân trang và sắp xếp (newest, price_asc, price_desc, featured).
+     * Số lượng tổng/đang bán/đã bán trả về qua header X-Total-Count, X-Active-Count, X-Sold-Count.
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<?> getUserProductPage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort) {
+        try {
+            List<Product> products = productService.getSellerProductPage(userId, page, size, sort);
+            SellerProductCounts counts = productService.countSellerProducts(userId);
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(counts.getTotal()))
+                    .header("X-Active-Count", String.valueOf(counts.getActive()))
+                    .header("X-Sold-Count", String.valueOf(counts.getSoldOut()))
+                    .body(productResponseAssembler.toResponses(products));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
     }
 
     @GetMapping
     public ResponseEntity<List<ProductResponse>> getAllProducts() {
         List<Product> products = productService.getAllProducts();
-        List<ProductResponse> productResponses = products.stream().map(this::mapToProductResponse)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productResponses);
+        return ResponseEntity.ok(productResponseAssembler.toResponses(products));
+    }
+
+    /**
+     * Catalog phân trang theo cursor (keyset trên createdAt/id).
+     * Truyền lại nextCursor của trang trước để lấy trang tiếp theo.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<?> getProductPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) TradeType tradeType,
+            @RequestParam(required = false) ProductStatus status) {
+        try {
+            CursorPageResponse<Product> page = productService.getProductPage(cursor, size, categoryId, tradeType, status);
+            List<ProductResponse> items = productResponseAssembler.toResponses(page.getItems());
+            return ResponseEntity.ok(new CursorPageResponse<>(items, page.getNextCursor(), page.isHasMore()));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
+    /**
+     * Tìm kiếm toàn văn (không dấu, xếp hạng BM25) trên tên, mô tả và thông số sản phẩm.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+        List<Product> products = productService.searchProducts(query, limit);
+        return ResponseEntity.ok(productResponseAssembler.toResponses(products));
+    }
+
+    /**
+     * Lọc sản phẩm theo facet (danh mục, loại giao dịch, trạng thái, độ mới, giá...)
+     * kèm số đếm cho từng giá trị facet.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedProductResponse> filterProducts(
+            @RequestParam(required = false) List<Long> categoryId,
+            @RequestParam(required = false) List<TradeType> tradeType,
+            @RequestParam(required = false) List<ProductStatus> status,
+            @RequestParam(required = false) List<String> condition,
+            @RequestParam(required = false) Boolean isNew,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) BigDecimal minBuyPrice,
+            @RequestParam(required = false) BigDecimal maxBuyPrice,
+            @RequestParam(required = false) BigDecimal minRentPrice,
+            @RequestParam(required = false) BigDecimal maxRentPrice,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        ProductFacetFilter filter = new ProductFacetFilter();
+        filter.setCategoryIds(categoryId);
+        filter.setTradeTypes(tradeType);
+        filter.setStatuses(status);
+        filter.setConditionBands(condition);
+        filter.setIsNew(isNew);
+        filter.setFeatured(featured);
+        filter.setMinBuyPrice(minBuyPrice);
+        filter.setMaxBuyPrice(maxBuyPrice);
+        filter.setMinRentPrice(minRentPrice);
+        filter.setMaxRentPrice(maxRentPrice);
+        return ResponseEntity.ok(productService.filterProducts(filter, page, size));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
-        Product product = productService.getProductById(id);
-        ProductResponse response = mapToProductResponse(product);
+        ProductResponse response = productDetailCache.get(id,
+                key -> productResponseAssembler.toResponse(productService.getProductById(key)));
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Lịch thuê của sản phẩm: các khoảng đã có người thuê trong [from, to) (mặc định 30 ngày từ hôm nay).
+     */
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> getRentalAvailability(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusDays(30);
+        if (!end.isAfter(start)) {
+            return ResponseEntity.badRequest().body("Ngày kết thúc phải sau ngày bắt đầu");
+        }
+
+        List<RentalAvailabilityResponse.BookedPeriod> periods = rentalAvailabilityIndex
+                .bookedPeriods(id, start.atStartOfDay(), end.atStartOfDay()).stream()
+                .map(b -> new RentalAvailabilityResponse.BookedPeriod(b.start(), b.end()))
+                .toList();
+        return ResponseEntity.ok(new RentalAvailabilityResponse(
+                id, start.atStartOfDay(), end.atStartOfDay(), periods.isEmpty(), periods));
+    }
+
+    /** Thống kê cache chi tiết sản phẩm (hit rate, eviction...). */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getProductCacheStats() {
+        return ResponseEntity.ok(productDetailCache.stats());
+    }
+
     @PostMapping
     public ResponseEntity<?> createProduct(@RequestBody Product product) {
         try {
@@ -109,7 +249,7 @@ public class ProductController {
             // These will be handled by ProductService now
 
             Product savedProduct = productService.saveProduct(product);
-            ProductResponse response = mapToProductResponse(savedProduct);
+            ProductResponse response = productResponseAssembler.toResponse(savedProduct);
             return ResponseEntity.ok(response);
         } catch (Exception ex) {
             String errorMessage = ex.getMessage();
@@ -129,10 +269,28 @@ public class ProductController {
         }
     }
 
+    /**
+     * Import hàng loạt sản phẩm: body là CSV (dòng đầu là header, ảnh cách nhau bởi "|")
+     * hoặc NDJSON (mỗi dòng một object). Body được đọc dạng stream, trả về báo cáo lỗi theo từng dòng.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        ProductImportService.Format format = contentType.toLowerCase().startsWith("text/csv")
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        try {
+            return ResponseEntity.ok(productImportService.importProducts(body, format));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Không đọc được dữ liệu import: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> updateProduct(@PathVariable Long id, @RequestBody Product product) {
         Product updatedProduct = productService.updateProduct(id, product);
-        ProductResponse response = mapToProductResponse(updatedProduct);
+        ProductResponse response = productResponseAssembler.toResponse(updatedProduct);
         return ResponseEntity.ok(response);
     }
 
@@ -161,19 +319,35 @@ public class ProductController {
         boolean wasThumbnail = images.stream()
                 .anyMatch(img -> Boolean.TRUE.equals(img.getIsThumbnail()));
 
-        deletePhysicalFile(filename);
         productImageRepository.deleteAll(images);
+        // Cùng một file (cùng hash) có thể được nhiều sản phẩm dùng: chỉ xóa sau khi commit,
+        // khi đã chắc không còn tham chiếu nào (kể cả từ transaction khác vừa commit)
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deletePhysicalFileIfUnreferenced(filename);
+            }
+        });
 
         if (wasThumbnail) {
             resetThumbnail(productId);
         }
+        productDetailCache.invalidate(productId);
 
         return ResponseEntity.ok("Đã xóa ảnh thành công");
     }
 
     /* ================== GET IMAGE ================== */
+    /**
+     * Stream file ảnh thẳng từ đĩa (không đọc cả file vào heap).
+     * Tên file là hash nội dung nên không bao giờ bị ghi đè, có thể cache lâu dài;
+     * ETag/Last-Modified cho phép trả 304, header Range được Spring xử lý thành 206.
+     * Tham số size (px) chọn bản thu nhỏ; khi bản đó chưa sinh xong thì trả ảnh gốc.
+     */
     @GetMapping("/images/{filename:.+}")
-    public ResponseEntity<byte[]> getProductImage(@PathVariable String filename) {
+    public ResponseEntity<Resource> getProductImage(
+            @PathVariable String filename,
+            @RequestParam(required = false) Integer size) {
 
         if (!isValidFilename(filename)) {
             return ResponseEntity.badRequest().build();
@@ -186,13 +360,9 @@ public class ProductController {
         }
 
         try {
-            byte[] data = Files.readAllBytes(path);
-            String type = Optional.ofNullable(Files.probeContentType(path))
-                    .orElse("application/octet-stream");
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, type)
-                    .body(data);
+            Path served = imageVariantService.resolve(path, size);
+            boolean fallback = size != null && served.equals(path);
+            return ImageFileResponses.serve(served, !fallback);
 
         } catch (IOException e) {
             return ResponseEntity.internalServerError().build();
@@ -200,6 +370,10 @@ public class ProductController {
     }
 
     /* ================== UPLOAD IMAGE FILE ================== */
+    /**
+     * Lưu ảnh theo hash SHA-256 của nội dung (xem ContentAddressedStorage): ảnh trùng chỉ lưu một lần.
+     * Các file trong cùng request được xử lý song song, kết quả giữ đúng thứ tự gửi lên.
+     */
     @PostMapping("/upload-images")
     public ResponseEntity<?> uploadImages(
             @RequestParam("files") MultipartFile[] files) {
@@ -208,26 +382,29 @@ public class ProductController {
             Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
             Files.createDirectories(uploadPath);
 
-            List<String> filenames = new ArrayList<>();
+            List<CompletableFuture<String>> pending = new ArrayList<>();
 
             for (MultipartFile file : files) {
 
                 if (file.isEmpty())
                     continue;
 
-                String filename = generateFilename(file.getOriginalFilename());
-                Files.copy(file.getInputStream(),
-                        uploadPath.resolve(filename),
-                        StandardCopyOption.REPLACE_EXISTING);
+                pending.add(CompletableFuture.supplyAsync(() -> storeUpload(file, uploadPath), uploadTaskExecutor));
+            }
 
-                filenames.add(filename);
+            List<String> filenames = new ArrayList<>();
+            for (CompletableFuture<String> future : pending) {
+                filenames.add(future.join());
             }
 
             return ResponseEntity.ok(filenames);
 
-        } catch (IOException e) {
+        } catch (IOException | CompletionException e) {
+            String message = e instanceof CompletionException && e.getCause() != null
+                    ? e.getCause().getMessage()
+                    : e.getMessage();
             return ResponseEntity.internalServerError()
-                    .body("Upload lỗi: " + e.getMessage());
+                    .body("Upload lỗi: " + message);
         }
     }
 
@@ -263,7 +440,9 @@ public class ProductController {
             thumbnail = false;
         }
 
-        return ResponseEntity.ok(productImageRepository.saveAll(images));
+        List<ProductImage> saved = productImageRepository.saveAll(images);
+        productDetailCache.invalidate(id);
+        return ResponseEntity.ok(saved);
     }
 
     /* ===================================================== */
@@ -284,9 +463,11 @@ public class ProductController {
                 .normalize();
     }
 
-    private void deletePhysicalFile(String filename) {
+    private void deletePhysicalFileIfUnreferenced(String filename) {
         try {
-            Files.deleteIfExists(resolveUploadPath(filename));
+            contentAddressedStorage.deleteIfUnreferenced(resolveUploadPath(filename),
+                    () -> productImageRepository.existsByImageUrl(filename),
+                    imageVariantService::deleteVariants);
         } catch (IOException ignored) {
         }
     }
@@ -301,58 +482,15 @@ public class ProductController {
         }
     }
 
-    private String generateFilename(String original) {
-
-        String ext = Optional.ofNullable(original)
-                .filter(f -> f.contains("."))
-                .map(f -> f.substring(f.lastIndexOf(".")))
-                .orElse(".jpg");
-
-        return "product_" +
-                System.currentTimeMillis() +
-                "_" +
-                UUID.randomUUID().toString().substring(0, 8) +
-                ext;
-    }
-
-    private ProductResponse mapToProductResponse(Product product) {
-        ProductResponse response = new ProductResponse();
-        response.setId(product.getId());
-        response.setName(product.getName());
-        response.setDescription(product.getDescription());
-        response.setConditionPercentage(product.getConditionPercentage());
-        response.setTradeType(product.getTradeType());
-        response.setBuyPrice(product.getBuyPrice());
-        response.setRentPrice(product.getRentPrice());
-        response.setRentUnit(product.getRentUnit());
-        response.setStatus(product.getStatus());
-        response.setAddressContact(product.getAddressContact());
-        response.setFeatured(product.getFeatured());
-        response.setIsNew(product.getIsNew());
-        response.setCreatedAt(product.getCreatedAt());
-
-        if (product.getSeller() != null) {
-            response.setSellerId(product.getSeller().getId());
-            response.setSellerName(product.getSeller().getFullName());
-        }
-
-        if (product.getCategory() != null) {
-            response.setCategoryId(product.getCategory().getId());
-            response.setCategoryName(product.getCategory().getName());
-        }
-
-        // Map images - need to fetch them explicitly due to LAZY loading
+    private String storeUpload(MultipartFile file, Path uploadPath) {
         try {
-            List<ProductImage> images = productImageRepository.findByProductId(product.getId());
-            if (images != null && !images.isEmpty()) {
-                List<String> imageUrls = images.stream().map(ProductImage::getImageUrl).collect(Collectors.toList());
-                response.setImages(imageUrls);
+            ContentAddressedStorage.StoredFile stored = contentAddressedStorage.store(file, uploadPath);
+            if (stored.created()) {
+                imageVariantService.generateVariants(uploadPath.resolve(stored.filename()));
             }
-        } catch (Exception e) {
-            // If images can't be loaded, just skip them
-            System.err.println("Error loading images for product " + product.getId() + ": " + e.getMessage());
+            return stored.filename();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        return response;
     }
 }
\ No newline at end of file
@@ -3,11 +3,15 @@ package com.mimi.controller;
 import com.mimi.dto.response.DailyRevenueResponse;
 import com.mimi.dto.response.RevenueResponse;
 import com.mimi.dto.response.SoldProductResponse;
+import com.mimi.export.ExportFormat;
 import com.mimi.service.RevenueService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -24,9 +28,12 @@ public class RevenueController {
             @PathVariable Long userId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories) {
         
-        RevenueResponse revenue = revenueService.getRevenueSummary(userId, startDate, endDate, category);
+        RevenueResponse revenue = revenueService.getRevenueSummary(userId, startDate, endDate, category,
+                categoryId, includeSubcategories);
         return ResponseEntity.ok(revenue);
     }
 
@@ -35,12 +42,43 @@ public class RevenueController {
             @PathVariable Long userId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false) String category) {
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories) {
         
-        List<SoldProductResponse> soldProducts = revenueService.getSoldProducts(userId, startDate, endDate, category);
+        List<SoldProductResponse> soldProducts = revenueService.getSoldProducts(userId, startDate, endDate, category,
+                categoryId, includeSubcategories);
         return ResponseEntity.ok(soldProducts);
     }
 
+    /**
+     * Export dòng hàng đã bán cho kế toán, format=csv (mặc định) hoặc xlsx. File được ghi dần trong lúc đọc DB
+     * nên người bán có nhiều đơn cũng không làm tăng bộ nhớ của server. Cùng bộ lọc với sold-products.
+     */
+    @GetMapping("/sold-products/{userId}/export")
+    public ResponseEntity<?> exportSoldProducts(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @RequestParam(required = false) String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.parse(format);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        StreamingResponseBody body = out -> revenueService.exportSoldItems(userId, startDate, endDate, category,
+                categoryId, includeSubcategories, exportFormat, out);
+        String filename = "doanh-thu-" + userId + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
     @GetMapping("/daily/{userId}")
     public ResponseEntity<List<DailyRevenueResponse>> getDailyRevenue(
             @PathVariable Long userId,
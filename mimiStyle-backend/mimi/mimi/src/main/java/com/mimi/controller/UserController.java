@@ -11,6 +11,7 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -32,6 +33,8 @@ import com.mimi.domain.User;
 import com.mimi.dto.request.UpdateUserRequest;
 import com.mimi.dto.response.UserResponse;
 import com.mimi.repository.UserRepository;
+import com.mimi.storage.ImageFileResponses;
+import com.mimi.storage.ImageVariantService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -41,6 +44,7 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 
     private final UserRepository userRepository;
+    private final ImageVariantService imageVariantService;
 
     /**
      * List all users (for ADMIN). Returns all users in the system.
@@ -215,12 +219,14 @@ public class UserController {
             /* ========= 3. Xóa avatar cũ ========= */
             if (user.getAvatarUrl() != null) {
                 Path oldAvatar = avatarDir.resolve(user.getAvatarUrl());
+                imageVariantService.deleteVariants(oldAvatar);
                 Files.deleteIfExists(oldAvatar);
             }
 
             /* ========= 4. Lưu file ========= */
             Files.copy(file.getInputStream(), target,
                     StandardCopyOption.REPLACE_EXISTING);
+            imageVariantService.generateVariants(target);
 
             /* ========= 5. Save DB ========= */
             user.setAvatarUrl(filename);
@@ -235,6 +241,32 @@ public class UserController {
         }
     }
 
+    /**
+     * Serve an avatar file, optionally as a resized variant (size in px).
+     * Falls back to the original until the variant has been generated.
+     */
+    @GetMapping("/avatars/{filename:.+}")
+    public ResponseEntity<Resource> getAvatar(
+            @PathVariable String filename,
+            @RequestParam(required = false) Integer size) {
+        if (filename.isBlank() || filename.contains("..") || filename.contains("/")) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Path original = Paths.get(uploadDir, "avatars", filename).toAbsolutePath().normalize();
+        if (!Files.isRegularFile(original)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            Path served = imageVariantService.resolve(original, size);
+            // Tên avatar có UUID và không bị ghi đè nên có thể cache lâu dài như ảnh sản phẩm
+            return ImageFileResponses.serve(served, size == null || !served.equals(original));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * Increment page view count for a user.
      * This endpoint can be called whenever a user profile is viewed.
@@ -13,14 +13,20 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_expected_return_date", columnList = "status, expected_return_date, id"),
+        @Index(name = "idx_orders_buyer_created_at_id", columnList = "buyer_id, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
+    // Pooled table generator (không dùng IDENTITY) để Hibernate gom INSERT thành JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_id")
+    @TableGenerator(name = "orders_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "orders", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -14,14 +14,21 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_products_seller_created_at", columnList = "seller_id, created_at"),
+        @Index(name = "idx_products_seller_status", columnList = "seller_id, status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
     
+    // Pooled table generator (không dùng IDENTITY) để Hibernate gom INSERT thành JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "products_id")
+    @TableGenerator(name = "products_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "products", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -74,7 +81,7 @@ public class Product {
     @Column(name = "is_new")
     private Boolean isNew = false;
     
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     @PrePersist
@@ -6,14 +6,19 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "product_images")
+@Table(name = "product_images", indexes = {
+        @Index(name = "idx_product_images_image_url", columnList = "image_url")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductImage {
     
+    // Pooled table generator (không dùng IDENTITY) để Hibernate gom INSERT thành JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_images_id")
+    @TableGenerator(name = "product_images_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "product_images", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,53 @@
+package com.mimi.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Doanh thu đã cộng dồn theo (người bán, ngày tạo đơn, danh mục). Dòng categoryId = 0 là tổng mọi danh mục
+ * của ngày đó (số đơn không cộng được từ các dòng danh mục vì một đơn có thể có hàng ở nhiều danh mục).
+ * Chỉ tính đơn ở trạng thái được tính doanh thu, xem {@link com.mimi.revenue.SellerRevenueRollup}.
+ */
+@Entity
+@Table(name = "seller_daily_revenue")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerDailyRevenue {
+
+    public static final long ALL_CATEGORIES = 0L;
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer qty = 0;
+
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount = 0;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "seller_id", nullable = false)
+        private Long sellerId;
+
+        @Column(nullable = false)
+        private LocalDate day;
+
+        @Column(name = "category_id", nullable = false)
+        private Long categoryId;
+    }
+}
@@ -1,5 +1,8 @@
 package com.mimi.domain.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     CONFIRMED,
@@ -8,5 +11,31 @@ public enum OrderStatus {
     CANCELLED,
     RENTING,      // Đang thuê
     RETURNED,     // Đã trả hàng
-    OVERDUE       // Quá hạn trả
-}
\ No newline at end of file
+    OVERDUE;      // Quá hạn trả
+
+    /**
+     * Luồng trạng thái (docs/RENTAL_SYSTEM.md):
+     * mua PENDING → CONFIRMED → SHIPPING → COMPLETED, thuê ... → SHIPPING → RENTING → RETURNED/OVERDUE,
+     * OVERDUE → RETURNED, chỉ hủy được khi PENDING. COMPLETED, CANCELLED, RETURNED là trạng thái cuối.
+     */
+    public Set<OrderStatus> allowedTransitions() {
+        switch (this) {
+            case PENDING:
+                return EnumSet.of(CONFIRMED, CANCELLED);
+            case CONFIRMED:
+                return EnumSet.of(SHIPPING);
+            case SHIPPING:
+                return EnumSet.of(COMPLETED, RENTING);
+            case RENTING:
+                return EnumSet.of(RETURNED, OVERDUE);
+            case OVERDUE:
+                return EnumSet.of(RETURNED);
+            default:
+                return EnumSet.noneOf(OrderStatus.class);
+        }
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return allowedTransitions().contains(target);
+    }
+}
@@ -0,0 +1,7 @@
+package com.mimi.domain.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    DISPATCHED,
+    FAILED        // Hết số lần thử, cần xử lý tay
+}
@@ -0,0 +1,16 @@
+package com.mimi.dto.request;
+
+import com.mimi.domain.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateOrderStatusRequest {
+    private List<Long> orderIds;
+    private OrderStatus status;
+}
@@ -0,0 +1,31 @@
+package com.mimi.dto.request;
+
+import com.mimi.domain.enums.RentUnit;
+import com.mimi.domain.enums.TradeType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/** Một dòng của file import sản phẩm (một object NDJSON hoặc một dòng CSV). */
+@Data
+@NoArgsConstructor
+public class ProductImportRow {
+    private String name;
+    private String description;
+    private String specifications;
+    private TradeType tradeType;
+    private BigDecimal buyPrice;
+    private BigDecimal rentPrice;
+    private BigDecimal deposit;
+    private RentUnit rentUnit;
+    private Integer conditionPercentage;
+    private String addressContact;
+    private Long sellerId;
+    private Long categoryId;
+    private Boolean isNew;
+    private Boolean featured;
+    /** Tên file ảnh đã upload qua /api/products/upload-images; ảnh đầu tiên là thumbnail */
+    private List<String> images;
+}
@@ -0,0 +1,32 @@
+package com.mimi.dto.response;
+
+import com.mimi.domain.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusResponse {
+    private OrderStatus targetStatus;
+    private int updated;
+    private int failed;
+    private List<Result> results = new ArrayList<>();
+
+    public enum Outcome { UPDATED, UNCHANGED, INVALID_TRANSITION, NOT_FOUND }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long orderId;
+        /** Trạng thái lúc kiểm tra; null nếu không tìm thấy đơn. */
+        private OrderStatus previousStatus;
+        private Outcome outcome;
+        private String message;
+    }
+}
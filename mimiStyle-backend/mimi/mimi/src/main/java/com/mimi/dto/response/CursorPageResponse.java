@@ -0,0 +1,24 @@
+package com.mimi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> items;
+    /** Token để lấy trang tiếp theo; null khi đã hết dữ liệu. */
+    private String nextCursor;
+    private boolean hasMore;
+
+    public <R> CursorPageResponse<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPageResponse<>(mapped, nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,20 @@
+package com.mimi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedProductResponse {
+    private List<ProductResponse> items;
+    private Integer totalItems;
+    private Integer currentPage;
+    private Integer pageSize;
+    /** facet → (giá trị → số sản phẩm khớp nếu chọn thêm giá trị đó) */
+    private Map<String, Map<String, Integer>> facets;
+}
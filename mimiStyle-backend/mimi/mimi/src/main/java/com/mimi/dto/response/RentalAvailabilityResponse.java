@@ -0,0 +1,28 @@
+package com.mimi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalAvailabilityResponse {
+    private Long productId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    /** true nếu không có khoảng thuê nào giao với [from, to). */
+    private boolean available;
+    private List<BookedPeriod> bookedPeriods;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BookedPeriod {
+        private LocalDateTime start;
+        private LocalDateTime end;
+    }
+}
@@ -0,0 +1,15 @@
+package com.mimi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerProductCounts {
+    private long total;
+    private long active;
+    private long hidden;
+    private long soldOut;
+}
@@ -0,0 +1,69 @@
+package com.mimi.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * CSV theo RFC 4180 (phân tách bằng dấu phẩy, xuống dòng CRLF), UTF-8 có BOM để Excel đọc đúng tiếng Việt.
+ * Ô chữ bắt đầu bằng = + - @ được thêm dấu ' phía trước để Excel không hiểu thành công thức.
+ */
+class CsvSheetWriter implements SheetWriter {
+
+    private final Writer writer;
+    private boolean started;
+
+    CsvSheetWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeRow(List<?> cells) throws IOException {
+        if (!started) {
+            writer.write('\uFEFF');
+            started = true;
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCell(cells.get(i));
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCell(Object value) throws IOException {
+        if (value instanceof BigDecimal decimal) {
+            writer.write(decimal.toPlainString());
+            return;
+        }
+        if (value instanceof Number number) {
+            writer.write(number.toString());
+            return;
+        }
+        String text = CellFormat.text(value);
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!started) {
+            writer.write('\uFEFF');
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,41 @@
+package com.mimi.export;
+
+import java.io.OutputStream;
+
+public enum ExportFormat {
+    CSV("text/csv; charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public SheetWriter open(OutputStream out, String sheetName) {
+        return this == CSV ? new CsvSheetWriter(out) : new XlsxSheetWriter(out, sheetName);
+    }
+
+    /** csv/xlsx, không phân biệt hoa thường; null = CSV. */
+    public static ExportFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Định dạng export không hỗ trợ: " + value);
+    }
+}
@@ -0,0 +1,16 @@
+package com.mimi.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Ghi bảng dữ liệu ra stream từng dòng một, không giữ các dòng đã ghi trong bộ nhớ.
+ * Ô được nhận dạng String, Number, LocalDate/LocalDateTime, Enum hoặc null (ô trống).
+ */
+public interface SheetWriter {
+
+    void writeRow(List<?> cells) throws IOException;
+
+    /** Ghi phần kết thúc file và flush; không đóng stream bên dưới. */
+    void finish() throws IOException;
+}
@@ -0,0 +1,147 @@
+package com.mimi.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * XLSX một sheet ghi thẳng ra zip: các phần cố định của gói (content types, quan hệ, workbook) được ghi trước,
+ * sau đó sheet1.xml được ghi dần từng dòng nên bộ nhớ không phụ thuộc số dòng.
+ * Chữ dùng inline string (không cần bảng sharedStrings phải giữ trong bộ nhớ), số ghi dạng ô số.
+ */
+class XlsxSheetWriter implements SheetWriter {
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String SHEET_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String DOC_REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    /** Số dòng tối đa của một sheet Excel. */
+    private static final int MAX_ROWS = 1_048_576;
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final String sheetName;
+    private int rowCount;
+
+    XlsxSheetWriter(OutputStream out, String sheetName) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        this.sheetName = sheetName;
+    }
+
+    @Override
+    public void writeRow(List<?> cells) throws IOException {
+        if (rowCount == 0) {
+            startSheet();
+        }
+        if (rowCount == MAX_ROWS) {
+            throw new IllegalStateException("Vượt quá " + MAX_ROWS + " dòng của một sheet Excel");
+        }
+        rowCount++;
+        writer.write("<row r=\"");
+        writer.write(Integer.toString(rowCount));
+        writer.write("\">");
+        for (Object value : cells) {
+            writeCell(value);
+        }
+        writer.write("</row>");
+    }
+
+    private void writeCell(Object value) throws IOException {
+        if (value == null) {
+            writer.write("<c/>");
+        } else if (value instanceof BigDecimal decimal) {
+            writer.write("<c><v>" + decimal.toPlainString() + "</v></c>");
+        } else if (value instanceof Number number) {
+            writer.write("<c><v>" + number + "</v></c>");
+        } else {
+            writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            writeEscaped(CellFormat.text(value));
+            writer.write("</t></is></c>");
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rowCount == 0) {
+            startSheet();
+        }
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void startSheet() throws IOException {
+        writePackageParts();
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        writer.write(XML_HEADER);
+        writer.write("<worksheet xmlns=\"" + SHEET_NS + "\"><sheetData>");
+    }
+
+    private void writePackageParts() throws IOException {
+        writePart("[Content_Types].xml",
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" "
+                + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/worksheets/sheet1.xml\" "
+                + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                + "</Types>");
+        writePart("_rels/.rels",
+                "<Relationships xmlns=\"" + REL_NS + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + DOC_REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        StringBuilder workbook = new StringBuilder()
+                .append("<workbook xmlns=\"").append(SHEET_NS).append("\" xmlns:r=\"").append(DOC_REL_NS).append("\">")
+                .append("<sheets><sheet name=\"");
+        appendEscaped(workbook, sheetName);
+        workbook.append("\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+        writePart("xl/workbook.xml", workbook.toString());
+        writePart("xl/_rels/workbook.xml.rels",
+                "<Relationships xmlns=\"" + REL_NS + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + DOC_REL_NS + "/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                + "</Relationships>");
+    }
+
+    private void writePart(String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(XML_HEADER);
+        writer.write(xml);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private void writeEscaped(String text) throws IOException {
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        appendEscaped(escaped, text);
+        writer.write(escaped.toString());
+    }
+
+    /** Escape XML và bỏ các ký tự điều khiển không hợp lệ trong XML 1.0. */
+    private static void appendEscaped(StringBuilder out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                default -> {
+                    if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') {
+                        out.append(ch);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.mimi.idempotency;
+
+/** Cùng Idempotency-Key nhưng body request khác với lần đầu. */
+public class IdempotencyKeyConflictException extends IllegalStateException {
+
+    public IdempotencyKeyConflictException(String key) {
+        super("Idempotency-Key đã được dùng cho một request khác: " + key);
+    }
+}
@@ -0,0 +1,161 @@
+package com.mimi.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mimi.domain.IdempotencyKey;
+import com.mimi.domain.Order;
+import com.mimi.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Chống tạo đơn trùng khi client gửi lại POST /api/orders với cùng Idempotency-Key.
+ * Ba tầng: cache Caffeine có TTL (replay nhanh), map các request đang chạy (request trùng đồng thời
+ * chờ request đầu thay vì chạy song song), và bảng idempotency_keys ghi cùng transaction với đơn hàng
+ * (replay sau khi cache bị loại hoặc sau khi khởi động lại / trên instance khác).
+ */
+@Slf4j
+@Component
+public class OrderIdempotencyStore {
+
+    /** orderId của đơn đã tạo; createdOrder chỉ có ở request thực sự tạo đơn, replay thì null. */
+    public record Outcome(Long orderId, Order createdOrder) {
+        public boolean replayed() {
+            return createdOrder == null;
+        }
+    }
+
+    private record Entry(String requestHash, Long orderId) {
+    }
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, Entry> recent;
+    private final ConcurrentMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    public OrderIdempotencyStore(
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${idempotency.max-entries:10000}") long maxEntries,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /** SHA-256 của body request đã serialize, dùng để so khớp các lần gửi lại. */
+    public String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Outcome execute(String key, String requestHash, Supplier<Order> createOrder) {
+        Entry cached = recent.getIfPresent(key);
+        if (cached != null) {
+            return replay(key, requestHash, cached);
+        }
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return replay(key, requestHash, await(running));
+        }
+
+        try {
+            Entry stored = idempotencyKeyRepository.findById(key)
+                    .map(row -> new Entry(row.getRequestHash(), row.getOrderId()))
+                    .orElse(null);
+            if (stored != null) {
+                recent.put(key, stored);
+                mine.complete(stored);
+                return replay(key, requestHash, stored);
+            }
+            Outcome outcome = createOnce(key, requestHash, createOrder);
+            Entry created = new Entry(requestHash, outcome.orderId());
+            recent.put(key, created);
+            mine.complete(created);
+            return outcome;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Tạo đơn và ghi key trong cùng một transaction: hoặc có cả hai, hoặc không có gì.
+     * Nếu instance khác đã ghi cùng key trước (vi phạm khóa chính) thì đơn vừa tạo bị rollback và trả về đơn của họ.
+     */
+    private Outcome createOnce(String key, String requestHash, Supplier<Order> createOrder) {
+        try {
+            Order order = transactionTemplate.execute(status -> {
+                Order created = createOrder.get();
+                idempotencyKeyRepository.insert(key, requestHash, created.getId());
+                return created;
+            });
+            return new Outcome(order.getId(), order);
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyKey winner = idempotencyKeyRepository.findById(key).orElseThrow(() -> e);
+            return replay(key, requestHash, new Entry(winner.getRequestHash(), winner.getOrderId()));
+        }
+    }
+
+    private Outcome replay(String key, String requestHash, Entry entry) {
+        if (!entry.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyConflictException(key);
+        }
+        return new Outcome(entry.orderId(), null);
+    }
+
+    private Entry await(CompletableFuture<Entry> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Xóa key quá TTL khỏi bảng; cache Caffeine tự hết hạn theo cùng TTL. */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:3600000}",
+            initialDelayString = "${idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        Integer deleted = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteCreatedBefore(cutoff));
+        if (deleted != null && deleted > 0) {
+            log.info("Đã xóa {} idempotency key hết hạn", deleted);
+        }
+    }
+}
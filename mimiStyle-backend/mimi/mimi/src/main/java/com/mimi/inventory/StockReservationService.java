@@ -0,0 +1,336 @@
+package com.mimi.inventory;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Giữ hàng theo variant cho checkout mà không khóa dòng product_variants.
+ * <ul>
+ *   <li>Mỗi variant có một bộ đếm tồn kho khả dụng trong bộ nhớ, trừ bằng CAS nên các checkout
+ *       đồng thời trên cùng sản phẩm hot không phải xếp hàng chờ row lock.</li>
+ *   <li>Mỗi lần giữ hàng là một {@link Hold}: xác nhận sau khi transaction tạo đơn commit,
+ *       trả lại khi rollback, và tự trả lại nếu quá hạn mà chưa được xác nhận (checkout bị bỏ dở).</li>
+ *   <li>Lượng đã xác nhận được ghi dồn xuống MySQL định kỳ bằng batch
+ *       {@code UPDATE ... WHERE stock_quantity >= ?} (write-behind).</li>
+ * </ul>
+ * Bộ đếm là nguồn sự thật khi ứng dụng chạy một instance; phần chưa flush được ghi nốt khi tắt ứng dụng.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private enum HoldState { HELD, CONFIRMED, RELEASED }
+
+    /** Một lần giữ hàng: variantId -> số lượng. */
+    public static final class Hold {
+        private final String id = UUID.randomUUID().toString();
+        private final Map<Long, Integer> quantities;
+        private final Instant expiresAt;
+        private final AtomicReference<HoldState> state = new AtomicReference<>(HoldState.HELD);
+
+        private Hold(Map<Long, Integer> quantities, Instant expiresAt) {
+            this.quantities = quantities;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    private static final String DECREMENT_SQL =
+            "UPDATE product_variants SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+    private static final String INCREMENT_SQL =
+            "UPDATE product_variants SET stock_quantity = stock_quantity + ? WHERE id = ?";
+    private static final String STOCK_SQL = "SELECT stock_quantity FROM product_variants WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration holdTtl;
+
+    /** Tồn kho khả dụng = tồn trong DB - phần đã xác nhận chưa flush - phần đang giữ. */
+    private final ConcurrentMap<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    /** Lượng cần trừ khỏi DB ở lần flush tới (âm nghĩa là cần cộng lại, ví dụ đơn bị hủy). */
+    private final ConcurrentMap<Long, AtomicInteger> pendingDeductions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Hold> holds = new ConcurrentHashMap<>();
+    /** Tổng số đơn vị đã bán vượt tồn kho trong DB (đơn đã commit nhưng DB không đủ hàng để trừ). */
+    private final AtomicLong oversoldUnits = new AtomicLong();
+
+    public StockReservationService(JdbcTemplate jdbcTemplate,
+                                   @Value("${inventory.hold-ttl-seconds:300}") long holdTtlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.holdTtl = Duration.ofSeconds(holdTtlSeconds);
+    }
+
+    /**
+     * Giữ hàng cho tất cả variant, hoặc không giữ gì nếu có variant không đủ hàng.
+     * Nếu đang trong transaction thì tự xác nhận khi commit và trả lại khi rollback.
+     */
+    public Hold reserve(Map<Long, Integer> quantities) {
+        // Duyệt theo thứ tự id để hai giỏ hàng chéo nhau không làm nhau thất bại lặp lại
+        Map<Long, Integer> sorted = new TreeMap<>(quantities);
+        List<Long> acquired = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : sorted.entrySet()) {
+            if (!tryAcquire(counter(entry.getKey()), entry.getValue())) {
+                for (Long variantId : acquired) {
+                    counter(variantId).addAndGet(sorted.get(variantId));
+                }
+                throw new IllegalArgumentException("Sản phẩm không đủ hàng (variant " + entry.getKey() + ")");
+            }
+            acquired.add(entry.getKey());
+        }
+
+        Hold hold = new Hold(sorted, Instant.now().plus(holdTtl));
+        holds.put(hold.id, hold);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        confirm(hold);
+                    } else {
+                        release(hold);
+                    }
+                }
+            });
+        }
+        return hold;
+    }
+
+    /** Đơn đã được lưu: chuyển lượng đang giữ thành lượng cần trừ trong DB. */
+    public void confirm(Hold hold) {
+        holds.remove(hold.id);
+        if (hold.state.compareAndSet(HoldState.HELD, HoldState.CONFIRMED)) {
+            addPending(hold.quantities, 1);
+            return;
+        }
+        if (hold.state.compareAndSet(HoldState.RELEASED, HoldState.CONFIRMED)) {
+            // Hold đã hết hạn và bị trả lại trước khi đơn commit: vẫn phải trừ vì đơn đã tồn tại
+            log.warn("Xác nhận hold {} sau khi đã hết hạn, tồn kho có thể âm", hold.id);
+            hold.quantities.forEach((variantId, qty) -> counter(variantId).addAndGet(-qty));
+            addPending(hold.quantities, 1);
+        }
+    }
+
+    public void release(Hold hold) {
+        holds.remove(hold.id);
+        if (hold.state.compareAndSet(HoldState.HELD, HoldState.RELEASED)) {
+            hold.quantities.forEach((variantId, qty) -> counter(variantId).addAndGet(qty));
+        }
+    }
+
+    /**
+     * Trả hàng về kho (đơn bị hủy, đồ thuê đã trả). Nếu đang trong transaction thì chỉ cộng sau khi commit.
+     */
+    public void restock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Runnable apply = () -> {
+            quantities.forEach((variantId, qty) -> counter(variantId).addAndGet(qty));
+            addPending(quantities, -1);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /** Tồn kho khả dụng hiện tại của variant (đã trừ phần đang giữ). */
+    public int available(Long variantId) {
+        return counter(variantId).get();
+    }
+
+    /** Trả lại hàng của các hold quá hạn mà transaction chưa kết thúc (checkout bị treo/bỏ dở). */
+    @Scheduled(fixedDelayString = "${inventory.expiry-check-interval-ms:30000}")
+    public void releaseExpiredHolds() {
+        Instant now = Instant.now();
+        for (Hold hold : holds.values()) {
+            if (hold.expiresAt.isBefore(now)) {
+                log.info("Trả lại hold {} quá hạn", hold.id);
+                release(hold);
+            }
+        }
+    }
+
+    /** Ghi dồn lượng đã xác nhận xuống product_variants trong một batch. */
+    @Scheduled(fixedDelayString = "${inventory.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        pendingDeductions.forEach((variantId, delta) -> {
+            int value = delta.getAndSet(0);
+            if (value != 0) {
+                deltas.put(variantId, value);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Long> decrementIds = new ArrayList<>();
+        List<Object[]> decrements = new ArrayList<>();
+        List<Object[]> increments = new ArrayList<>();
+        deltas.forEach((variantId, delta) -> {
+            if (delta > 0) {
+                decrementIds.add(variantId);
+                decrements.add(new Object[]{delta, variantId, delta});
+            } else {
+                increments.add(new Object[]{-delta, variantId});
+            }
+        });
+
+        if (!decrements.isEmpty()) {
+            int[] updated;
+            try {
+                updated = jdbcTemplate.batchUpdate(DECREMENT_SQL, decrements);
+            } catch (RuntimeException e) {
+                log.error("Flush tồn kho thất bại, sẽ thử lại: {}", e.getMessage());
+                addPending(deltas, 1);
+                return;
+            }
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    Long variantId = decrementIds.get(i);
+                    try {
+                        deductAvailable(variantId, deltas.get(variantId));
+                    } catch (RuntimeException e) {
+                        log.error("Trừ tồn kho variant {} thất bại, sẽ thử lại: {}", variantId, e.getMessage());
+                        addPending(Map.of(variantId, deltas.get(variantId)), 1);
+                    }
+                }
+            }
+        }
+        if (!increments.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(INCREMENT_SQL, increments);
+            } catch (RuntimeException e) {
+                log.error("Cộng lại tồn kho thất bại, sẽ thử lại: {}", e.getMessage());
+                for (Object[] args : increments) {
+                    addPending(Map.of((Long) args[1], (Integer) args[0]), -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * DB không đủ hàng cho lượng đã xác nhận (tồn kho bị sửa ngoài luồng này): vẫn trừ phần DB còn có,
+     * ghi nhận phần thiếu là bán vượt, rồi nạp lại bộ đếm từ DB để không bán tiếp số hàng không còn.
+     * Chạy trong flush (đang giữ khóa của service).
+     */
+    private void deductAvailable(Long variantId, int quantity) {
+        int applied = 0;
+        while (true) {
+            List<Integer> rows = jdbcTemplate.queryForList(STOCK_SQL, Integer.class, variantId);
+            int stock = rows.isEmpty() || rows.get(0) == null ? 0 : rows.get(0);
+            int take = Math.max(0, Math.min(stock, quantity));
+            if (take == 0 || jdbcTemplate.update(DECREMENT_SQL, take, variantId, take) == 1) {
+                applied = take;
+                break;
+            }
+            // Tồn kho vừa đổi giữa lúc đọc và lúc trừ: đọc lại
+        }
+        int shortfall = quantity - applied;
+        if (shortfall > 0) {
+            oversoldUnits.addAndGet(shortfall);
+            log.error("Bán vượt tồn kho variant {}: thiếu {} / {} đơn vị đã xác nhận", variantId, shortfall, quantity);
+        }
+        AtomicInteger counter = available.get(variantId);
+        if (counter != null) {
+            try {
+                counter.set(seedValue(variantId));
+            } catch (RuntimeException e) {
+                // Phần có thể trừ đã ghi xong vào DB: không ném lỗi để flush không cộng lại và trừ thêm lần nữa
+                log.error("Nạp lại bộ đếm variant {} thất bại: {}", variantId, e.getMessage());
+            }
+        }
+    }
+
+    /** Số đơn vị đã bán vượt tồn kho kể từ khi khởi động. */
+    public long getOversoldUnits() {
+        return oversoldUnits.get();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private boolean tryAcquire(AtomicInteger counter, int qty) {
+        while (true) {
+            int current = counter.get();
+            if (current < qty) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - qty)) {
+                return true;
+            }
+        }
+    }
+
+    private void addPending(Map<Long, Integer> quantities, int sign) {
+        quantities.forEach((variantId, qty) ->
+                pendingDeductions.computeIfAbsent(variantId, id -> new AtomicInteger()).addAndGet(sign * qty));
+    }
+
+    /**
+     * Nạp tồn kho từ DB ở lần đầu dùng. Đọc DB và phần chờ flush dưới cùng khóa với flush,
+     * nên một lần flush không thể xen giữa làm lượng đó bị tính hai lần hoặc bị bỏ sót.
+     */
+    private AtomicInteger counter(Long variantId) {
+        AtomicInteger counter = available.get(variantId);
+        if (counter != null) {
+            return counter;
+        }
+        synchronized (this) {
+            counter = available.get(variantId);
+            if (counter == null) {
+                counter = new AtomicInteger(seedValue(variantId));
+                available.put(variantId, counter);
+            }
+            return counter;
+        }
+    }
+
+    /** Tồn khả dụng = tồn trong DB - phần đã xác nhận chưa flush - phần đang giữ. Gọi khi đang giữ khóa. */
+    private int seedValue(Long variantId) {
+        List<Integer> rows = jdbcTemplate.queryForList(STOCK_SQL, Integer.class, variantId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Variant not found: " + variantId);
+        }
+        int stock = rows.get(0) == null ? 0 : rows.get(0);
+        AtomicInteger pending = pendingDeductions.get(variantId);
+        int held = 0;
+        for (Hold hold : holds.values()) {
+            if (hold.state.get() == HoldState.HELD) {
+                held += hold.quantities.getOrDefault(variantId, 0);
+            }
+        }
+        return stock - (pending == null ? 0 : pending.get()) - held;
+    }
+}
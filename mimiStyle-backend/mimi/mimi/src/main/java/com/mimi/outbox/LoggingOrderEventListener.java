@@ -0,0 +1,15 @@
+package com.mimi.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class LoggingOrderEventListener implements OrderEventListener {
+
+    @Override
+    public void onOrderEvent(OrderEvent event) {
+        log.info("Order event {} order={} {} -> {}", event.type(), event.orderId(),
+                event.previousStatus(), event.status());
+    }
+}
@@ -0,0 +1,15 @@
+package com.mimi.outbox;
+
+import com.mimi.domain.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sự kiện vòng đời đơn hàng, lưu trong outbox_events dạng JSON và giao cho {@link OrderEventListener}.
+ * previousStatus null với ORDER_CREATED; status null với ORDER_DELETED.
+ */
+public record OrderEvent(Type type, Long orderId, OrderStatus previousStatus, OrderStatus status,
+                         LocalDateTime occurredAt) {
+
+    public enum Type { ORDER_CREATED, ORDER_STATUS_CHANGED, ORDER_DELETED }
+}
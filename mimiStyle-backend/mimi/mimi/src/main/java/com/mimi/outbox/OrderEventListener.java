@@ -0,0 +1,11 @@
+package com.mimi.outbox;
+
+/**
+ * Nhận sự kiện đơn hàng từ {@link OutboxDispatcher}. Giao ít nhất một lần (at-least-once):
+ * cùng một event có thể đến lại sau khi thử lại, nên listener phải idempotent.
+ * Ném exception để báo thất bại; event sẽ được gửi lại theo backoff.
+ */
+public interface OrderEventListener {
+
+    void onOrderEvent(OrderEvent event);
+}
@@ -0,0 +1,62 @@
+package com.mimi.outbox;
+
+import com.mimi.domain.OutboxEvent;
+import com.mimi.domain.enums.OrderStatus;
+import com.mimi.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Ghi sự kiện đơn hàng vào bảng outbox_events trong cùng transaction với thay đổi của Order
+ * (MANDATORY: gọi ngoài transaction là lỗi lập trình). Việc giao cho listener do {@link OutboxDispatcher}
+ * làm ở nền, nên createOrder/updateOrderStatus chỉ tốn thêm một INSERT nằm trong cùng batch.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Long orderId, OrderStatus status) {
+        append(new OrderEvent(OrderEvent.Type.ORDER_CREATED, orderId, null, status, LocalDateTime.now()));
+    }
+
+    /** Một event cho mỗi đơn của một lần cập nhật hàng loạt, lưu bằng một saveAll (JDBC batch). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(Collection<Long> orderIds, OrderStatus previous, OrderStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            events.add(toEntity(new OrderEvent(OrderEvent.Type.ORDER_STATUS_CHANGED, orderId, previous, status, now)));
+        }
+        outboxEventRepository.saveAll(events);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderDeleted(Long orderId, OrderStatus previous) {
+        append(new OrderEvent(OrderEvent.Type.ORDER_DELETED, orderId, previous, null, LocalDateTime.now()));
+    }
+
+    private void append(OrderEvent event) {
+        outboxEventRepository.save(toEntity(event));
+    }
+
+    private OutboxEvent toEntity(OrderEvent event) {
+        OutboxEvent entity = new OutboxEvent();
+        entity.setEventType(event.type().name());
+        entity.setAggregateId(event.orderId());
+        entity.setPayload(objectMapper.writeValueAsString(event));
+        entity.setNextAttemptAt(event.occurredAt());
+        return entity;
+    }
+}
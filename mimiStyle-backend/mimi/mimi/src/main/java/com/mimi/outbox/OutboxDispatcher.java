@@ -0,0 +1,158 @@
+package com.mimi.outbox;
+
+import com.mimi.domain.OutboxEvent;
+import com.mimi.domain.enums.OutboxStatus;
+import com.mimi.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Đọc outbox_events theo lô (SELECT ... FOR UPDATE SKIP LOCKED) và giao cho mọi {@link OrderEventListener}.
+ * Event chỉ được đánh dấu DISPATCHED khi mọi listener chạy xong; trạng thái được ghi trong transaction giữ khóa dòng,
+ * nên khi lỗi/khởi động lại thì event được gửi lại (at-least-once). Listener của mỗi event chạy trong transaction
+ * riêng (REQUIRES_NEW), nên listener ném lỗi chỉ rollback phần của nó, không làm cả lô bị rollback-only. Lỗi thì thử lại với backoff
+ * lũy thừa, quá maxAttempts thì chuyển FAILED. Thứ tự chỉ được đảm bảo trong lúc không có event nào phải thử lại.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final int BATCH_SIZE = 100;
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OrderEventListener> listeners;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate listenerTransaction;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    private final AtomicLong dispatchedTotal = new AtomicLong();
+    private final AtomicLong retriedTotal = new AtomicLong();
+    private final AtomicLong failedTotal = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private volatile long lastLagMs;
+    private volatile LocalDateTime lastPollAt;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            List<OrderEventListener> listeners,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.retention-days:7}") long retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.listeners = listeners;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.listenerTransaction = new TransactionTemplate(transactionManager);
+        this.listenerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void poll() {
+        lastPollAt = LocalDateTime.now();
+        Integer processed;
+        do {
+            processed = transactionTemplate.execute(status -> dispatchBatch());
+        } while (processed != null && processed == BATCH_SIZE);
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.lockDueBatch(now, BATCH_SIZE);
+        for (OutboxEvent event : batch) {
+            try {
+                OrderEvent payload = objectMapper.readValue(event.getPayload(), OrderEvent.class);
+                listenerTransaction.executeWithoutResult(status -> {
+                    for (OrderEventListener listener : listeners) {
+                        listener.onOrderEvent(payload);
+                    }
+                });
+                markDispatched(event);
+            } catch (RuntimeException e) {
+                markFailedAttempt(event, e);
+            }
+        }
+        // Các entity đang được quản lý: trạng thái mới được ghi khi transaction commit
+        return batch.size();
+    }
+
+    private void markDispatched(OutboxEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        event.setStatus(OutboxStatus.DISPATCHED);
+        event.setDispatchedAt(now);
+        event.setAttempts(event.getAttempts() + 1);
+        dispatchedTotal.incrementAndGet();
+        if (event.getCreatedAt() != null) {
+            long lag = Duration.between(event.getCreatedAt(), now).toMillis();
+            lastLagMs = lag;
+            maxLagMs.accumulateAndGet(lag, Math::max);
+        }
+    }
+
+    private void markFailedAttempt(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxStatus.FAILED);
+            failedTotal.incrementAndGet();
+            log.error("Outbox event {} ({}) thất bại sau {} lần: {}", event.getId(), event.getEventType(),
+                    attempts, message);
+            return;
+        }
+        event.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+        retriedTotal.incrementAndGet();
+        log.warn("Outbox event {} lỗi lần {}, thử lại sau: {}", event.getId(), attempts, message);
+    }
+
+    /** 2^attempts giây, tối đa MAX_BACKOFF. */
+    private Duration backoff(int attempts) {
+        long seconds = 1L << Math.min(attempts, 20);
+        Duration delay = Duration.ofSeconds(seconds);
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    /** Xóa event đã gửi quá thời gian lưu. */
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}",
+            initialDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void purgeDispatched() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        transactionTemplate.execute(status -> outboxEventRepository.deleteDispatchedBefore(cutoff));
+    }
+
+    public Map<String, Object> stats() {
+        LocalDateTime oldestPending = outboxEventRepository.findOldestPendingCreatedAt();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pending", outboxEventRepository.countByStatus(OutboxStatus.PENDING));
+        result.put("failed", outboxEventRepository.countByStatus(OutboxStatus.FAILED));
+        result.put("oldestPendingAgeMs", oldestPending == null ? 0
+                : Duration.between(oldestPending, LocalDateTime.now()).toMillis());
+        result.put("dispatchedTotal", dispatchedTotal.get());
+        result.put("retriedTotal", retriedTotal.get());
+        result.put("failedTotal", failedTotal.get());
+        result.put("lastLagMs", lastLagMs);
+        result.put("maxLagMs", maxLagMs.get());
+        result.put("lastPollAt", lastPollAt);
+        result.put("listeners", listeners.size());
+        return result;
+    }
+}
@@ -0,0 +1,212 @@
+package com.mimi.rental;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cây khoảng thời gian (AVL tăng cường): mỗi nút giữ [start, end) của một đơn thuê và end lớn nhất
+ * trong cây con, nên kiểm tra chồng lấn chỉ đi một nhánh, O(log n).
+ * Khóa của nút là (start, orderId) để một đơn có thể có nhiều khoảng. Không thread-safe: người gọi tự đồng bộ.
+ */
+public class IntervalTree {
+
+    public record Interval(LocalDateTime start, LocalDateTime end, Long orderId) {
+        boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+            return start.isBefore(otherEnd) && otherStart.isBefore(end);
+        }
+    }
+
+    private static final class Node {
+        private final Interval interval;
+        private LocalDateTime maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void insert(Interval interval) {
+        root = insert(root, interval);
+        size++;
+    }
+
+    /** Xóa mọi khoảng của orderId bắt đầu tại start. */
+    public void remove(LocalDateTime start, Long orderId) {
+        root = remove(root, start, orderId);
+    }
+
+    /** Khoảng đầu tiên chồng lấn [start, end) không thuộc excludeOrderId, hoặc null. */
+    public Interval findOverlap(LocalDateTime start, LocalDateTime end, Long excludeOrderId) {
+        return findOverlap(root, start, end, excludeOrderId);
+    }
+
+    /** Mọi khoảng chồng lấn [start, end), sắp theo start. */
+    public List<Interval> overlapping(LocalDateTime start, LocalDateTime end) {
+        List<Interval> result = new ArrayList<>();
+        collect(root, start, end, result);
+        return result;
+    }
+
+    private Interval findOverlap(Node node, LocalDateTime start, LocalDateTime end, Long excludeOrderId) {
+        while (node != null) {
+            if (!node.maxEnd.isAfter(start)) {
+                // Không khoảng nào trong cây con kết thúc sau start
+                return null;
+            }
+            if (node.left != null && node.left.maxEnd.isAfter(start)) {
+                Interval found = findOverlap(node.left, start, end, excludeOrderId);
+                if (found != null) {
+                    return found;
+                }
+            }
+            if (node.interval.overlaps(start, end) && !node.interval.orderId().equals(excludeOrderId)) {
+                return node.interval;
+            }
+            if (!node.interval.start().isBefore(end)) {
+                // Các nút bên phải đều bắt đầu từ end trở đi
+                return null;
+            }
+            node = node.right;
+        }
+        return null;
+    }
+
+    private void collect(Node node, LocalDateTime start, LocalDateTime end, List<Interval> result) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+        collect(node.left, start, end, result);
+        if (node.interval.overlaps(start, end)) {
+            result.add(node.interval);
+        }
+        if (node.interval.start().isBefore(end)) {
+            collect(node.right, start, end, result);
+        }
+    }
+
+    private int compare(LocalDateTime start, Long orderId, Interval interval) {
+        int byStart = start.compareTo(interval.start());
+        return byStart != 0 ? byStart : orderId.compareTo(interval.orderId());
+    }
+
+    private Node insert(Node node, Interval interval) {
+        if (node == null) {
+            return new Node(interval);
+        }
+        if (compare(interval.start(), interval.orderId(), node.interval) < 0) {
+            node.left = insert(node.left, interval);
+        } else {
+            node.right = insert(node.right, interval);
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, LocalDateTime start, Long orderId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, orderId, node.interval);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, orderId);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, orderId);
+        } else {
+            size--;
+            // Các khoảng trùng khóa (cùng đơn, cùng start) liền kề theo thứ tự giữa, nhưng sau khi xoay
+            // có thể nằm ở cả cây con trái lẫn phải: xóa ở cả hai phía
+            node.left = remove(node.left, start, orderId);
+            node.right = remove(node.right, start, orderId);
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node replacement = new Node(successor.interval);
+            replacement.right = removeMin(node.right);
+            replacement.left = node.left;
+            return rebalance(replacement);
+        }
+        return rebalance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime max = node.interval.end();
+        if (node.left != null && node.left.maxEnd.isAfter(max)) {
+            max = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(max)) {
+            max = node.right.maxEnd;
+        }
+        node.maxEnd = max;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
@@ -0,0 +1,151 @@
+package com.mimi.rental;
+
+import com.mimi.domain.enums.OrderStatus;
+import com.mimi.outbox.OrderOutbox;
+import com.mimi.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Job định kỳ chuyển đơn RENTING đã quá expectedReturnDate mà chưa trả hàng sang OVERDUE.
+ * Quét theo khối trên index (status, expected_return_date, id) bằng keyset, mỗi khối khóa các đơn,
+ * giữ lại đơn vẫn còn RENTING rồi đổi trạng thái bằng một câu UPDATE ... WHERE id IN (...) trong transaction riêng,
+ * nên không giữ transaction dài và không save từng entity.
+ */
+@Slf4j
+@Component
+public class OverdueRentalDetector {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final RentalAvailabilityIndex rentalAvailabilityIndex;
+    private final OrderOutbox orderOutbox;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong currentScanned = new AtomicLong();
+    private final AtomicLong currentUpdated = new AtomicLong();
+    private final AtomicLong totalUpdated = new AtomicLong();
+    private final AtomicLong runCount = new AtomicLong();
+    private volatile LocalDateTime lastStartedAt;
+    private volatile LocalDateTime lastFinishedAt;
+    private volatile long lastDurationMs;
+    private volatile long lastScanned;
+    private volatile long lastUpdated;
+    private volatile String lastError;
+
+    public OverdueRentalDetector(OrderRepository orderRepository,
+                                 RentalAvailabilityIndex rentalAvailabilityIndex,
+                                 OrderOutbox orderOutbox,
+                                 PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.rentalAvailabilityIndex = rentalAvailabilityIndex;
+        this.orderOutbox = orderOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${rental.overdue-check-interval-ms:300000}",
+            initialDelayString = "${rental.overdue-initial-delay-ms:60000}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /** Chạy một lượt quét; trả về false nếu đang có lượt khác chạy. */
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        long started = System.currentTimeMillis();
+        lastStartedAt = LocalDateTime.now();
+        currentScanned.set(0);
+        currentUpdated.set(0);
+        lastError = null;
+        try {
+            scan(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Quét đơn thuê quá hạn thất bại", e);
+        } finally {
+            lastScanned = currentScanned.get();
+            lastUpdated = currentUpdated.get();
+            lastDurationMs = System.currentTimeMillis() - started;
+            lastFinishedAt = LocalDateTime.now();
+            runCount.incrementAndGet();
+            running.set(false);
+        }
+        if (lastUpdated > 0) {
+            log.info("Đã chuyển {} đơn thuê sang OVERDUE ({} ms)", lastUpdated, lastDurationMs);
+        }
+        return true;
+    }
+
+    private void scan(LocalDateTime now) {
+        PageRequest chunk = PageRequest.of(0, CHUNK_SIZE);
+        List<Object[]> rows = orderRepository.findOverdueFirstChunk(OrderStatus.RENTING, now, chunk);
+        while (!rows.isEmpty()) {
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                ids.add((Long) row[0]);
+            }
+            currentScanned.addAndGet(ids.size());
+
+            // Khóa khối rồi chỉ đổi các đơn vẫn còn RENTING, để event và lịch thuê chỉ áp cho đơn thực sự bị chuyển
+            List<Long> overdueIds = transactionTemplate.execute(status -> {
+                List<Long> renting = new ArrayList<>(ids.size());
+                for (Object[] row : orderRepository.lockStatusesByIds(ids)) {
+                    if (OrderStatus.RENTING.name().equals(row[1])) {
+                        renting.add(((Number) row[0]).longValue());
+                    }
+                }
+                if (renting.isEmpty()) {
+                    return renting;
+                }
+                orderRepository.updateStatusBulk(renting, OrderStatus.RENTING, OrderStatus.OVERDUE);
+                orderOutbox.statusChanged(renting, OrderStatus.RENTING, OrderStatus.OVERDUE);
+                return renting;
+            });
+            int updated = overdueIds == null ? 0 : overdueIds.size();
+            currentUpdated.addAndGet(updated);
+            totalUpdated.addAndGet(updated);
+            if (updated > 0) {
+                rentalAvailabilityIndex.markOverdue(overdueIds);
+            }
+
+            if (rows.size() < CHUNK_SIZE) {
+                break;
+            }
+            Object[] last = rows.get(rows.size() - 1);
+            rows = orderRepository.findOverdueChunkAfter(OrderStatus.RENTING, now,
+                    (LocalDateTime) last[1], (Long) last[0], chunk);
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("running", running.get());
+        result.put("currentScanned", currentScanned.get());
+        result.put("currentUpdated", currentUpdated.get());
+        result.put("runCount", runCount.get());
+        result.put("lastStartedAt", lastStartedAt);
+        result.put("lastFinishedAt", lastFinishedAt);
+        result.put("lastDurationMs", lastDurationMs);
+        result.put("lastScanned", lastScanned);
+        result.put("lastUpdated", lastUpdated);
+        result.put("totalUpdated", totalUpdated.get());
+        result.put("lastError", lastError);
+        return result;
+    }
+}
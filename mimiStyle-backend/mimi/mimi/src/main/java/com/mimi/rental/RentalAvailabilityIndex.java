@@ -0,0 +1,232 @@
+package com.mimi.rental;
+
+import com.mimi.domain.Order;
+import com.mimi.domain.OrderItem;
+import com.mimi.domain.enums.OrderStatus;
+import com.mimi.domain.enums.OrderType;
+import com.mimi.repository.OrderItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục các khoảng thời gian đang cho thuê của từng sản phẩm (một {@link IntervalTree} mỗi sản phẩm),
+ * dùng để chặn cho thuê trùng lịch khi tạo đơn và trả lịch trống của sản phẩm mà không quét order_items.
+ * Khoảng thuê của một dòng RENT là [ngày tạo đơn, ngày tạo đơn + rentDuration ngày); đơn OVERDUE
+ * chưa trả hàng nên được coi là chiếm sản phẩm vô thời hạn.
+ * Dựng lại từ DB khi khởi động, sau đó được cập nhật ở mọi chỗ đổi trạng thái/xóa đơn.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RentalAvailabilityIndex {
+
+    /** Trạng thái mà sản phẩm thuê vẫn bị giữ. */
+    public static final Set<OrderStatus> ACTIVE_STATUSES = EnumSet.of(
+            OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.SHIPPING,
+            OrderStatus.RENTING, OrderStatus.OVERDUE);
+
+    /** Mốc kết thúc của đơn quá hạn (chưa biết ngày trả). */
+    private static final LocalDateTime OPEN_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    public record Booking(Long productId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private final OrderItemRepository orderItemRepository;
+
+    private final Map<Long, IntervalTree> trees = new ConcurrentHashMap<>();
+    /** orderId -> các khoảng đã ghi, để gỡ đơn mà không cần đọc lại DB. */
+    private final Map<Long, List<Booking>> bookingsByOrder = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = orderItemRepository.findActiveRentalWindows(OrderType.RENT, ACTIVE_STATUSES);
+        trees.clear();
+        bookingsByOrder.clear();
+        for (Object[] row : rows) {
+            Long productId = (Long) row[0];
+            Long orderId = (Long) row[1];
+            OrderStatus status = (OrderStatus) row[2];
+            LocalDateTime createdAt = (LocalDateTime) row[3];
+            Integer rentDuration = (Integer) row[4];
+            if (createdAt == null) {
+                continue;
+            }
+            add(orderId, List.of(window(productId, createdAt, rentDuration, status)));
+        }
+        log.info("Đã dựng lịch thuê cho {} đơn", bookingsByOrder.size());
+    }
+
+    /** Các khoảng thuê của một đơn (rỗng nếu đơn không có dòng RENT hoặc không còn giữ hàng). */
+    public List<Booking> windowsOf(Order order) {
+        if (!ACTIVE_STATUSES.contains(order.getStatus()) || order.getOrderItems() == null) {
+            return List.of();
+        }
+        LocalDateTime start = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        List<Booking> windows = new ArrayList<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getOrderType() == OrderType.RENT && item.getProduct() != null) {
+                windows.add(window(item.getProduct().getId(), start, item.getRentDuration(), order.getStatus()));
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Ghi lịch cho đơn mới nếu không trùng với đơn khác; kiểm tra và ghi trên cùng một khóa theo sản phẩm.
+     * Nếu đang trong transaction thì tự gỡ ra khi rollback.
+     */
+    public void book(Long orderId, List<Booking> windows) {
+        List<Booking> booked = new ArrayList<>();
+        for (Booking window : windows) {
+            IntervalTree tree = trees.computeIfAbsent(window.productId(), id -> new IntervalTree());
+            synchronized (tree) {
+                IntervalTree.Interval conflict = tree.findOverlap(window.start(), window.end(), orderId);
+                if (conflict != null) {
+                    unbook(orderId, booked);
+                    throw new IllegalArgumentException("Sản phẩm " + window.productId()
+                            + " đã có người thuê đến " + conflict.end().toLocalDate());
+                }
+                tree.insert(new IntervalTree.Interval(window.start(), window.end(), orderId));
+            }
+            booked.add(window);
+        }
+        if (booked.isEmpty()) {
+            return;
+        }
+        bookingsByOrder.merge(orderId, booked, (a, b) -> {
+            List<Booking> merged = new ArrayList<>(a);
+            merged.addAll(b);
+            return merged;
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        remove(orderId);
+                    }
+                }
+            });
+        }
+    }
+
+    /** Đặt lại lịch của đơn theo trạng thái mới, chạy sau khi transaction commit nếu có. */
+    public void refresh(Long orderId, List<Booking> windows) {
+        runAfterCommit(() -> {
+            remove(orderId);
+            add(orderId, windows);
+        });
+    }
+
+    /** Gỡ lịch của đơn (trả hàng, hủy, xóa), chạy sau khi transaction commit nếu có. */
+    public void release(Long orderId) {
+        runAfterCommit(() -> remove(orderId));
+    }
+
+    /** Đơn chuyển sang OVERDUE: kéo dài các khoảng của đơn thành vô thời hạn (sau commit nếu có transaction). */
+    public void markOverdue(Collection<Long> orderIds) {
+        runAfterCommit(() -> extendToOpenEnd(orderIds));
+    }
+
+    private void extendToOpenEnd(Collection<Long> orderIds) {
+        for (Long orderId : orderIds) {
+            List<Booking> windows = bookingsByOrder.get(orderId);
+            if (windows == null) {
+                continue;
+            }
+            List<Booking> extended = new ArrayList<>(windows.size());
+            for (Booking window : windows) {
+                extended.add(new Booking(window.productId(), window.start(), OPEN_END));
+            }
+            remove(orderId);
+            add(orderId, extended);
+        }
+    }
+
+    /** Các khoảng đã bị thuê của sản phẩm giao với [from, to). */
+    public List<Booking> bookedPeriods(Long productId, LocalDateTime from, LocalDateTime to) {
+        IntervalTree tree = trees.get(productId);
+        if (tree == null) {
+            return List.of();
+        }
+        List<IntervalTree.Interval> intervals;
+        synchronized (tree) {
+            intervals = tree.overlapping(from, to);
+        }
+        List<Booking> result = new ArrayList<>(intervals.size());
+        for (IntervalTree.Interval interval : intervals) {
+            result.add(new Booking(productId, interval.start(), interval.end()));
+        }
+        return result;
+    }
+
+    private void add(Long orderId, Collection<Booking> windows) {
+        if (windows.isEmpty()) {
+            return;
+        }
+        for (Booking window : windows) {
+            IntervalTree tree = trees.computeIfAbsent(window.productId(), id -> new IntervalTree());
+            synchronized (tree) {
+                tree.insert(new IntervalTree.Interval(window.start(), window.end(), orderId));
+            }
+        }
+        bookingsByOrder.merge(orderId, new ArrayList<>(windows), (a, b) -> {
+            List<Booking> merged = new ArrayList<>(a);
+            merged.addAll(b);
+            return merged;
+        });
+    }
+
+    private void remove(Long orderId) {
+        List<Booking> windows = bookingsByOrder.remove(orderId);
+        if (windows != null) {
+            unbook(orderId, windows);
+        }
+    }
+
+    private void unbook(Long orderId, List<Booking> windows) {
+        for (Booking window : windows) {
+            IntervalTree tree = trees.get(window.productId());
+            if (tree != null) {
+                synchronized (tree) {
+                    tree.remove(window.start(), orderId);
+                }
+            }
+        }
+    }
+
+    private Booking window(Long productId, LocalDateTime start, Integer rentDuration, OrderStatus status) {
+        // Đơn vị thuê được tính theo ngày, giống cách OrderServiceImpl tính expectedReturnDate
+        int days = rentDuration != null && rentDuration > 0 ? rentDuration : 1;
+        LocalDateTime end = status == OrderStatus.OVERDUE ? OPEN_END : start.plusDays(days);
+        return new Booking(productId, start, end);
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -2,11 +2,17 @@ package com.mimi.repository;
 
 import com.mimi.domain.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByName(String name);
+
+    /** (id, parentId, name) của mọi danh mục, để dựng cây danh mục mà không nạp entity. */
+    @Query("SELECT c.id, c.parentId, c.name FROM Category c")
+    List<Object[]> findTreeRows();
 }
\ No newline at end of file
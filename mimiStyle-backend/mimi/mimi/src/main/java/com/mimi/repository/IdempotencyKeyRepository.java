@@ -0,0 +1,26 @@
+package com.mimi.repository;
+
+import com.mimi.domain.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /** INSERT thuần (không merge) để key trùng luôn báo lỗi khóa chính thay vì ghi đè. */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idem_key, request_hash, order_id, created_at) " +
+                   "VALUES (:key, :requestHash, :orderId, NOW())", nativeQuery = true)
+    void insert(@Param("key") String key,
+                @Param("requestHash") String requestHash,
+                @Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
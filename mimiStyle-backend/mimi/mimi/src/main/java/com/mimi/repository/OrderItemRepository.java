@@ -1,35 +1,105 @@
 package com.mimi.repository;
 
 import com.mimi.domain.OrderItem;
+import com.mimi.domain.enums.OrderStatus;
+import com.mimi.domain.enums.OrderType;
+import com.mimi.repository.projection.OrderItemView;
+import com.mimi.repository.projection.SoldItemExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
-    @Query("SELECT DISTINCT oi FROM OrderItem oi " +
+    @Query("SELECT oi FROM OrderItem oi " +
            "JOIN FETCH oi.order o " +
-           "JOIN oi.product p " +
+           "JOIN FETCH oi.product p " +
+           "JOIN FETCH p.category c " +
            "WHERE p.seller.id = :sellerId " +
            "AND o.status IN ('PENDING', 'CONFIRMED', 'SHIPPING', 'COMPLETED') " +
            "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
            "AND (:endDate IS NULL OR o.createdAt <= :endDate) " +
-           "ORDER BY o.createdAt DESC")
+           "ORDER BY o.createdAt DESC, o.id DESC")
     List<OrderItem> findSoldItemsBySeller(@Param("sellerId") Long sellerId,
                                          @Param("startDate") LocalDateTime startDate,
                                          @Param("endDate") LocalDateTime endDate);
 
-    /** Lấy tất cả order items là sản phẩm của seller (không lọc ngày). */
-    @Query("SELECT DISTINCT oi FROM OrderItem oi " +
+    /** Như findSoldItemsBySeller nhưng chỉ sản phẩm thuộc các danh mục cho trước, lọc ngay trong truy vấn. */
+    @Query("SELECT oi FROM OrderItem oi " +
            "JOIN FETCH oi.order o " +
-           "JOIN oi.product p " +
+           "JOIN FETCH oi.product p " +
+           "JOIN FETCH p.category c " +
            "WHERE p.seller.id = :sellerId " +
+           "AND c.id IN :categoryIds " +
            "AND o.status IN ('PENDING', 'CONFIRMED', 'SHIPPING', 'COMPLETED') " +
-           "ORDER BY o.createdAt DESC")
-    List<OrderItem> findAllSoldItemsBySeller(@Param("sellerId") Long sellerId);
+           "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
+           "AND (:endDate IS NULL OR o.createdAt <= :endDate) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderItem> findSoldItemsBySellerInCategories(@Param("sellerId") Long sellerId,
+                                                      @Param("categoryIds") Collection<Long> categoryIds,
+                                                      @Param("startDate") LocalDateTime startDate,
+                                                      @Param("endDate") LocalDateTime endDate);
+
+    /** Dòng hàng của nhiều đơn dạng projection (join products lấy tên), một truy vấn cho cả lô. */
+    @Query("SELECT new com.mimi.repository.projection.OrderItemView(" +
+           "oi.order.id, p.id, p.name, oi.quantity, oi.price) FROM OrderItem oi " +
+           "JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemView> findViewsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /** Các dòng hàng của nhiều đơn kèm sản phẩm, một truy vấn cho cả lô. */
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.product " +
+           "WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItem> findWithProductByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Dòng hàng đã bán của seller cho export, đọc dạng stream với fetch size cố định (cần useCursorFetch=true)
+     * nên bộ nhớ không phụ thuộc số dòng. filterCategories = false thì bỏ qua categoryIds.
+     * Phải dùng trong transaction và đóng stream sau khi đọc.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.mimi.repository.projection.SoldItemExportRow(" +
+           "o.id, o.createdAt, o.status, p.id, p.name, c.name, oi.quantity, oi.price, " +
+           "o.shippingName, o.shippingPhone, o.shippingAddress) " +
+           "FROM OrderItem oi JOIN oi.order o JOIN oi.product p JOIN p.category c " +
+           "WHERE p.seller.id = :sellerId " +
+           "AND o.status IN ('PENDING', 'CONFIRMED', 'SHIPPING', 'COMPLETED') " +
+           "AND (:filterCategories = false OR c.id IN :categoryIds) " +
+           "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
+           "AND (:endDate IS NULL OR o.createdAt <= :endDate) " +
+           "ORDER BY o.createdAt DESC, o.id DESC, oi.id")
+    Stream<SoldItemExportRow> streamSoldItemsForExport(@Param("sellerId") Long sellerId,
+                                                       @Param("filterCategories") boolean filterCategories,
+                                                       @Param("categoryIds") Collection<Long> categoryIds,
+                                                       @Param("startDate") LocalDateTime startDate,
+                                                       @Param("endDate") LocalDateTime endDate);
+
+    /** (sellerId, createdAt của đơn, categoryId, orderId, price, quantity) của các dòng trong các đơn, để cộng/trừ rollup doanh thu. */
+    @Query("SELECT p.seller.id, o.createdAt, p.category.id, o.id, oi.price, oi.quantity FROM OrderItem oi " +
+           "JOIN oi.order o JOIN oi.product p WHERE o.id IN :orderIds")
+    List<Object[]> findRevenueRowsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /** (variantId, tổng số lượng) của các dòng có variant trong các đơn; orderType null = mọi loại. */
+    @Query("SELECT oi.variant.id, SUM(oi.quantity) FROM OrderItem oi " +
+           "WHERE oi.order.id IN :orderIds AND oi.variant IS NOT NULL " +
+           "AND (:orderType IS NULL OR oi.orderType = :orderType) " +
+           "GROUP BY oi.variant.id")
+    List<Object[]> sumVariantQuantitiesByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                                                  @Param("orderType") OrderType orderType);
+
+    /** (productId, orderId, status, createdAt, rentDuration) của các dòng thuê còn giữ sản phẩm. */
+    @Query("SELECT oi.product.id, o.id, o.status, o.createdAt, oi.rentDuration FROM OrderItem oi " +
+           "JOIN oi.order o " +
+           "WHERE oi.orderType = :orderType AND o.status IN :statuses")
+    List<Object[]> findActiveRentalWindows(@Param("orderType") OrderType orderType,
+                                           @Param("statuses") Collection<OrderStatus> statuses);
 }
\ No newline at end of file
@@ -2,13 +2,23 @@ package com.mimi.repository;
 
 import com.mimi.domain.Order;
 import com.mimi.domain.enums.OrderStatus;
+import com.mimi.repository.projection.OrderHeaderView;
+import com.mimi.repository.projection.SellerOrderView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -17,15 +27,114 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     List<Order> findAllByOrderByCreatedAtDesc();
 
+    /** Lịch sử đơn của người mua dạng projection, mới nhất trước. */
+    @Query("SELECT new com.mimi.repository.projection.OrderHeaderView(" +
+           "o.id, o.createdAt, o.status, o.shippingName, o.shippingPhone, o.shippingAddress, " +
+           "o.totalAmount, o.shippingFee, o.discountAmount, o.finalAmount) FROM Order o " +
+           "WHERE o.buyer.id = :buyerId " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderHeaderView> findHistoryByBuyer(@Param("buyerId") Long buyerId);
+
+    /** Trang đầu lịch sử đơn (keyset trên createdAt, id; index buyer_id, created_at, id). */
+    @Query("SELECT new com.mimi.repository.projection.OrderHeaderView(" +
+           "o.id, o.createdAt, o.status, o.shippingName, o.shippingPhone, o.shippingAddress, " +
+           "o.totalAmount, o.shippingFee, o.discountAmount, o.finalAmount) FROM Order o " +
+           "WHERE o.buyer.id = :buyerId " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderHeaderView> findHistoryFirstPage(@Param("buyerId") Long buyerId, Pageable pageable);
+
+    /** Các trang tiếp theo của lịch sử đơn. */
+    @Query("SELECT new com.mimi.repository.projection.OrderHeaderView(" +
+           "o.id, o.createdAt, o.status, o.shippingName, o.shippingPhone, o.shippingAddress, " +
+           "o.totalAmount, o.shippingFee, o.discountAmount, o.finalAmount) FROM Order o " +
+           "WHERE o.buyer.id = :buyerId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderHeaderView> findHistoryPageAfter(@Param("buyerId") Long buyerId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
+    /**
+     * Duyệt đơn hàng cho export dạng stream: fetch size cố định (cần useCursorFetch=true với MySQL)
+     * nên driver không nạp cả bảng vào bộ nhớ. Phải dùng trong transaction và đóng stream sau khi đọc.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
     @Query("SELECT o FROM Order o " +
-           "JOIN o.orderItems oi " +
-           "JOIN oi.product p " +
-           "WHERE p.seller.id = :sellerId " +
-           "AND o.status = :status " +
-           "AND (:startDate IS NULL OR o.createdAt >= :startDate) " +
-           "AND (:endDate IS NULL OR o.createdAt <= :endDate)")
-    List<Order> findOrdersBySeller(@Param("sellerId") Long sellerId,
-                                  @Param("status") OrderStatus status,
-                                  @Param("startDate") LocalDateTime startDate,
-                                  @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+           "WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) " +
+           "AND (:to IS NULL OR o.createdAt < :to) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    Stream<Order> streamForExport(@Param("status") OrderStatus status,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+
+    /** (id, expectedReturnDate) của đơn đang thuê đã quá hạn trả, trang đầu theo index (status, expected_return_date, id). */
+    @Query("SELECT o.id, o.expectedReturnDate FROM Order o " +
+           "WHERE o.status = :status AND o.actualReturnDate IS NULL " +
+           "AND o.expectedReturnDate < :now " +
+           "ORDER BY o.expectedReturnDate, o.id")
+    List<Object[]> findOverdueFirstChunk(@Param("status") OrderStatus status,
+                                         @Param("now") LocalDateTime now,
+                                         Pageable pageable);
+
+    /** Các khối tiếp theo: keyset trên (expectedReturnDate, id). */
+    @Query("SELECT o.id, o.expectedReturnDate FROM Order o " +
+           "WHERE o.status = :status AND o.actualReturnDate IS NULL " +
+           "AND o.expectedReturnDate < :now " +
+           "AND (o.expectedReturnDate > :afterDate OR (o.expectedReturnDate = :afterDate AND o.id > :afterId)) " +
+           "ORDER BY o.expectedReturnDate, o.id")
+    List<Object[]> findOverdueChunkAfter(@Param("status") OrderStatus status,
+                                         @Param("now") LocalDateTime now,
+                                         @Param("afterDate") LocalDateTime afterDate,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
+    /**
+     * (id, status) của nhiều đơn, khóa dòng đến hết transaction (theo thứ tự id để hai request không khóa chéo nhau).
+     * status trả về dạng chuỗi tên enum.
+     */
+    @Query(value = "SELECT id, status FROM orders WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockStatusesByIds(@Param("ids") Collection<Long> ids);
+
+    /** Như updateStatusBulk nhưng ghi luôn ngày trả thực tế (chuyển sang RETURNED). */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.mimi.domain.enums.OrderStatus.RETURNED, o.actualReturnDate = :returnedAt " +
+           "WHERE o.id IN :ids AND o.status = :from")
+    int markReturnedBulk(@Param("ids") Collection<Long> ids,
+                         @Param("from") OrderStatus from,
+                         @Param("returnedAt") LocalDateTime returnedAt);
+
+    /** Đổi trạng thái hàng loạt bằng một câu UPDATE; chỉ đổi đơn vẫn còn ở trạng thái from. */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to WHERE o.id IN :ids AND o.status = :from")
+    int updateStatusBulk(@Param("ids") Collection<Long> ids,
+                         @Param("from") OrderStatus from,
+                         @Param("to") OrderStatus to);
+
+    /**
+     * Hộp đơn của người bán: mỗi đơn một dòng (GROUP BY theo đơn), đi từ products theo seller_id
+     * sang order_items qua index (product_id, order_id). Đếm bằng COUNT(DISTINCT) để tổng khớp số dòng.
+     */
+    @Query(value = "SELECT new com.mimi.repository.projection.SellerOrderView(" +
+                   "o.id, o.createdAt, o.status, o.shippingName, o.shippingPhone, o.shippingAddress, " +
+                   "SUM(oi.quantity), SUM(oi.price * oi.quantity)) " +
+                   "FROM OrderItem oi JOIN oi.order o JOIN oi.product p " +
+                   "WHERE p.seller.id = :sellerId " +
+                   "AND (:status IS NULL OR o.status = :status) " +
+                   "AND (:from IS NULL OR o.createdAt >= :from) " +
+                   "AND (:to IS NULL OR o.createdAt < :to) " +
+                   "GROUP BY o.id, o.createdAt, o.status, o.shippingName, o.shippingPhone, o.shippingAddress " +
+                   "ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(DISTINCT o.id) " +
+                        "FROM OrderItem oi JOIN oi.order o JOIN oi.product p " +
+                        "WHERE p.seller.id = :sellerId " +
+                        "AND (:status IS NULL OR o.status = :status) " +
+                        "AND (:from IS NULL OR o.createdAt >= :from) " +
+                        "AND (:to IS NULL OR o.createdAt < :to)")
+    Page<SellerOrderView> findSellerOrders(@Param("sellerId") Long sellerId,
+                                           @Param("status") OrderStatus status,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           Pageable pageable);
+}
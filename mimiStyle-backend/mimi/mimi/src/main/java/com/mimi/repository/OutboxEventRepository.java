@@ -0,0 +1,35 @@
+package com.mimi.repository;
+
+import com.mimi.domain.OutboxEvent;
+import com.mimi.domain.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Khóa một lô event đến hạn gửi. SKIP LOCKED để nhiều dispatcher (nhiều instance) chạy song song
+     * mà không chờ nhau và không lấy trùng event.
+     */
+    @Query(value = "SELECT * FROM outbox_events " +
+                   "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(OutboxStatus status);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.status = com.mimi.domain.enums.OutboxStatus.PENDING")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.mimi.domain.enums.OutboxStatus.DISPATCHED " +
+           "AND e.dispatchedAt < :cutoff")
+    int deleteDispatchedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,12 +2,27 @@ package com.mimi.repository;
 
 import com.mimi.domain.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     List<ProductImage> findByProductId(Long productId);
     List<ProductImage> findByProductIdAndImageUrl(Long productId, String imageUrl);
+
+    boolean existsByImageUrl(String imageUrl);
+
+    /** (productId, imageUrl) của nhiều sản phẩm trong một truy vấn, giữ thứ tự ảnh theo id. */
+    @Query("SELECT pi.product.id, pi.imageUrl FROM ProductImage pi " +
+           "WHERE pi.product.id IN :productIds ORDER BY pi.id")
+    List<Object[]> findImageUrlsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    /** (productId, imageUrl) của ảnh đầu tiên (id nhỏ nhất) mỗi sản phẩm, dùng làm ảnh đại diện. */
+    @Query("SELECT pi.product.id, pi.imageUrl FROM ProductImage pi WHERE pi.id IN (" +
+           "SELECT MIN(pi2.id) FROM ProductImage pi2 WHERE pi2.product.id IN :productIds GROUP BY pi2.product.id)")
+    List<Object[]> findThumbnailUrlsByProductIds(@Param("productIds") Collection<Long> productIds);
 }
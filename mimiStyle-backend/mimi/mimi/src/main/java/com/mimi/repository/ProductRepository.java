@@ -1,12 +1,68 @@
 package com.mimi.repository;
 
 import com.mimi.domain.Product;
+import com.mimi.domain.enums.ProductStatus;
+import com.mimi.domain.enums.TradeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    @EntityGraph(attributePaths = {"seller", "category"})
     List<Product> findBySellerId(Long sellerId);
-}
\ No newline at end of file
+
+    /** Một trang gian hàng của người bán; seller/category để LAZY, assembler nạp theo lô. */
+    List<Product> findBySellerId(Long sellerId, Pageable pageable);
+
+    /** Số sản phẩm của người bán theo từng trạng thái, chỉ đọc index (seller_id, status). */
+    @Query("SELECT p.status, COUNT(p) FROM Product p WHERE p.seller.id = :sellerId GROUP BY p.status")
+    List<Object[]> countBySellerGroupByStatus(@Param("sellerId") Long sellerId);
+
+    List<Product> findAllByOrderByCreatedAtAscIdAsc();
+
+    @EntityGraph(attributePaths = {"seller", "category"})
+    Optional<Product> findWithSellerAndCategoryById(Long id);
+
+    @EntityGraph(attributePaths = {"seller", "category"})
+    List<Product> findByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"seller", "category"})
+    @Query("SELECT p FROM Product p")
+    List<Product> findAllWithSellerAndCategory();
+
+    /** Trang đầu của catalog, sắp xếp theo (createdAt, id) giảm dần. */
+    @EntityGraph(attributePaths = {"seller", "category"})
+    @Query("SELECT p FROM Product p " +
+           "WHERE (:categoryId IS NULL OR p.category.id = :categoryId) " +
+           "AND (:tradeType IS NULL OR p.tradeType = :tradeType) " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findCatalogFirstPage(@Param("categoryId") Long categoryId,
+                                       @Param("tradeType") TradeType tradeType,
+                                       @Param("status") ProductStatus status,
+                                       Pageable pageable);
+
+    /** Các trang tiếp theo: keyset trên (createdAt, id) nên không phải quét lại các dòng đã trả về. */
+    @EntityGraph(attributePaths = {"seller", "category"})
+    @Query("SELECT p FROM Product p " +
+           "WHERE (:categoryId IS NULL OR p.category.id = :categoryId) " +
+           "AND (:tradeType IS NULL OR p.tradeType = :tradeType) " +
+           "AND (:status IS NULL OR p.status = :status) " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findCatalogPageAfter(@Param("categoryId") Long categoryId,
+                                       @Param("tradeType") TradeType tradeType,
+                                       @Param("status") ProductStatus status,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+}
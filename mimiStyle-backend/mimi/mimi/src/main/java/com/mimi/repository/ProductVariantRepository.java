@@ -0,0 +1,9 @@
+package com.mimi.repository;
+
+import com.mimi.domain.ProductVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+}
@@ -0,0 +1,60 @@
+package com.mimi.repository;
+
+import com.mimi.domain.SellerDailyRevenue;
+import com.mimi.dto.response.DailyRevenueResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SellerDailyRevenueRepository extends JpaRepository<SellerDailyRevenue, SellerDailyRevenue.Key> {
+
+    /** Doanh thu từng ngày của người bán (dòng tổng categoryId = 0), tăng dần theo ngày; from/to null = không giới hạn. */
+    @Query("SELECT new com.mimi.dto.response.DailyRevenueResponse(r.id.day, r.revenue, r.orderCount, r.qty) " +
+           "FROM SellerDailyRevenue r " +
+           "WHERE r.id.sellerId = :sellerId AND r.id.categoryId = 0 " +
+           "AND (:from IS NULL OR r.id.day >= :from) " +
+           "AND (:to IS NULL OR r.id.day <= :to) " +
+           "ORDER BY r.id.day")
+    List<DailyRevenueResponse> findDaily(@Param("sellerId") Long sellerId,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to);
+
+    /**
+     * (thứ Hai đầu tuần ISO, doanh thu, số đơn, số lượng) theo tuần, GROUP BY trong MySQL.
+     * Số đơn cộng được từ các dòng ngày vì mỗi đơn chỉ thuộc một ngày.
+     */
+    @Query(value = "SELECT DATE_SUB(day, INTERVAL WEEKDAY(day) DAY) AS week_start, " +
+                   "SUM(revenue), SUM(order_count), SUM(qty) FROM seller_daily_revenue " +
+                   "WHERE seller_id = :sellerId AND category_id = 0 " +
+                   "AND (:from IS NULL OR day >= :from) " +
+                   "AND (:to IS NULL OR day <= :to) " +
+                   "GROUP BY week_start ORDER BY week_start", nativeQuery = true)
+    List<Object[]> sumWeekly(@Param("sellerId") Long sellerId,
+                             @Param("from") LocalDate from,
+                             @Param("to") LocalDate to);
+
+    /** (tổng doanh thu, tổng số lượng) từ các dòng tổng. */
+    @Query("SELECT COALESCE(SUM(r.revenue), 0), COALESCE(SUM(r.qty), 0) FROM SellerDailyRevenue r " +
+           "WHERE r.id.sellerId = :sellerId AND r.id.categoryId = 0 " +
+           "AND (:from IS NULL OR r.id.day >= :from) " +
+           "AND (:to IS NULL OR r.id.day <= :to)")
+    List<Object[]> sumTotals(@Param("sellerId") Long sellerId,
+                             @Param("from") LocalDate from,
+                             @Param("to") LocalDate to);
+
+    /** Như sumTotals nhưng cộng các dòng của những danh mục cho trước. */
+    @Query("SELECT COALESCE(SUM(r.revenue), 0), COALESCE(SUM(r.qty), 0) FROM SellerDailyRevenue r " +
+           "WHERE r.id.sellerId = :sellerId AND r.id.categoryId IN :categoryIds " +
+           "AND (:from IS NULL OR r.id.day >= :from) " +
+           "AND (:to IS NULL OR r.id.day <= :to)")
+    List<Object[]> sumByCategories(@Param("sellerId") Long sellerId,
+                                   @Param("categoryIds") Collection<Long> categoryIds,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+}
@@ -0,0 +1,20 @@
+package com.mimi.repository.projection;
+
+import com.mimi.domain.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Các cột của orders cần cho lịch sử đơn hàng, đọc bằng constructor expression (không nạp entity). */
+public record OrderHeaderView(
+        Long id,
+        LocalDateTime createdAt,
+        OrderStatus status,
+        String shippingName,
+        String shippingPhone,
+        String shippingAddress,
+        BigDecimal totalAmount,
+        BigDecimal shippingFee,
+        BigDecimal discountAmount,
+        BigDecimal finalAmount) {
+}
@@ -0,0 +1,12 @@
+package com.mimi.repository.projection;
+
+import java.math.BigDecimal;
+
+/** Một dòng hàng kèm tên sản phẩm, đọc bằng constructor expression (không nạp entity). */
+public record OrderItemView(
+        Long orderId,
+        Long productId,
+        String productName,
+        Integer quantity,
+        BigDecimal price) {
+}
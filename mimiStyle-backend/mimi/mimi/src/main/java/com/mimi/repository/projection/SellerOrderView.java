@@ -0,0 +1,21 @@
+package com.mimi.repository.projection;
+
+import com.mimi.domain.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng trong hộp đơn của người bán: thông tin giao hàng của đơn và phần hàng thuộc về người bán đó
+ * (một đơn có thể chứa sản phẩm của nhiều người bán nên itemCount/sellerSubtotal chỉ tính các dòng của họ).
+ */
+public record SellerOrderView(
+        Long orderId,
+        LocalDateTime createdAt,
+        OrderStatus status,
+        String shippingName,
+        String shippingPhone,
+        String shippingAddress,
+        Long itemCount,
+        BigDecimal sellerSubtotal) {
+}
@@ -0,0 +1,21 @@
+package com.mimi.repository.projection;
+
+import com.mimi.domain.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Một dòng hàng đã bán cho file export doanh thu của người bán (constructor expression, không nạp entity). */
+public record SoldItemExportRow(
+        Long orderId,
+        LocalDateTime createdAt,
+        OrderStatus status,
+        Long productId,
+        String productName,
+        String categoryName,
+        Integer quantity,
+        BigDecimal price,
+        String shippingName,
+        String shippingPhone,
+        String shippingAddress) {
+}
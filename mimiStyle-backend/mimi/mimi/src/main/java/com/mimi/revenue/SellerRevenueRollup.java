@@ -0,0 +1,183 @@
+package com.mimi.revenue;
+
+import com.mimi.domain.Order;
+import com.mimi.domain.OrderItem;
+import com.mimi.domain.SellerDailyRevenue;
+import com.mimi.domain.enums.OrderStatus;
+import com.mimi.repository.OrderItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Duy trì bảng seller_daily_revenue theo từng thay đổi đơn hàng thay vì tính lại từ order_items mỗi lần xem báo cáo.
+ * Được gọi trong cùng transaction với thay đổi của Order (tạo đơn, đổi trạng thái, xóa) nên rollup luôn khớp
+ * với dữ liệu đã commit; chỉ khi đơn đi vào hoặc ra khỏi {@link #COUNTED_STATUSES} mới có UPSERT.
+ * Mỗi lần ghi là một batch {@code INSERT ... ON DUPLICATE KEY UPDATE} cộng/trừ delta.
+ */
+@Slf4j
+@Component
+public class SellerRevenueRollup {
+
+    /** Trạng thái được tính doanh thu (giống các truy vấn doanh thu cũ trên order_items). */
+    public static final Set<OrderStatus> COUNTED_STATUSES = EnumSet.of(
+            OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.SHIPPING, OrderStatus.COMPLETED);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO seller_daily_revenue (seller_id, day, category_id, revenue, qty, order_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "revenue = revenue + VALUES(revenue), qty = qty + VALUES(qty), order_count = order_count + VALUES(order_count)";
+
+    /** Đơn tạo xen vào lúc đang dựng lại có thể đã ghi dòng trước: lấy số liệu tính từ DB đè lên. */
+    private static final String REBUILD_ON_DUPLICATE =
+            "ON DUPLICATE KEY UPDATE revenue = VALUES(revenue), qty = VALUES(qty), order_count = VALUES(order_count)";
+
+    /** Ghi theo thứ tự khóa để hai transaction cùng cập nhật một người bán không khóa dòng chéo nhau. */
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::sellerId)
+            .thenComparing(Key::day)
+            .thenComparing(Key::categoryId);
+
+    private record Key(Long sellerId, LocalDate day, Long categoryId) {
+    }
+
+    private static final class Delta {
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private int qty;
+        private final Set<Long> orderIds = new HashSet<>();
+    }
+
+    private final OrderItemRepository orderItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public SellerRevenueRollup(OrderItemRepository orderItemRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager) {
+        this.orderItemRepository = orderItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Đơn mới: cộng từ các dòng hàng trong bộ nhớ (chưa flush nên không đọc lại từ DB). */
+    public void orderCreated(Order order) {
+        if (!COUNTED_STATUSES.contains(order.getStatus()) || order.getOrderItems() == null) {
+            return;
+        }
+        LocalDateTime createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        Map<Key, Delta> deltas = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            add(deltas, item.getProduct().getSeller().getId(), createdAt, item.getProduct().getCategory().getId(),
+                    order.getId(), item.getPrice(), item.getQuantity());
+        }
+        write(deltas, 1);
+    }
+
+    /** Các đơn đổi từ trạng thái from sang to; chỉ ghi khi đơn đi vào hoặc ra khỏi nhóm được tính. */
+    public void statusChanged(Collection<Long> orderIds, OrderStatus from, OrderStatus to) {
+        boolean wasCounted = COUNTED_STATUSES.contains(from);
+        boolean isCounted = COUNTED_STATUSES.contains(to);
+        if (wasCounted == isCounted || orderIds.isEmpty()) {
+            return;
+        }
+        write(loadDeltas(orderIds), isCounted ? 1 : -1);
+    }
+
+    public void statusChanged(Long orderId, OrderStatus from, OrderStatus to) {
+        statusChanged(List.of(orderId), from, to);
+    }
+
+    /** Phải gọi trước khi xóa đơn, khi order_items còn trong DB. */
+    public void orderDeleted(Long orderId, OrderStatus status) {
+        if (COUNTED_STATUSES.contains(status)) {
+            write(loadDeltas(List.of(orderId)), -1);
+        }
+    }
+
+    /**
+     * Bảng rỗng (lần đầu triển khai hoặc sau khi xóa tay) thì dựng lại từ toàn bộ đơn đã tính doanh thu
+     * bằng hai câu INSERT ... SELECT ... GROUP BY chạy trong DB.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        List<Integer> any = jdbcTemplate.queryForList("SELECT 1 FROM seller_daily_revenue LIMIT 1", Integer.class);
+        if (!any.isEmpty()) {
+            return;
+        }
+        String statuses = COUNTED_STATUSES.stream()
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(", "));
+        String from = "FROM order_items oi JOIN orders o ON o.id = oi.order_id JOIN products p ON p.id = oi.product_id " +
+                "WHERE o.status IN (" + statuses + ") ";
+        Integer rows = transactionTemplate.execute(status -> {
+            int perCategory = jdbcTemplate.update(
+                    "INSERT INTO seller_daily_revenue (seller_id, day, category_id, revenue, qty, order_count) " +
+                    "SELECT p.seller_id, DATE(o.created_at), p.category_id, SUM(oi.price * oi.quantity), " +
+                    "SUM(oi.quantity), COUNT(DISTINCT o.id) " + from +
+                    "GROUP BY p.seller_id, DATE(o.created_at), p.category_id " + REBUILD_ON_DUPLICATE);
+            int totals = jdbcTemplate.update(
+                    "INSERT INTO seller_daily_revenue (seller_id, day, category_id, revenue, qty, order_count) " +
+                    "SELECT p.seller_id, DATE(o.created_at), " + SellerDailyRevenue.ALL_CATEGORIES + ", " +
+                    "SUM(oi.price * oi.quantity), SUM(oi.quantity), COUNT(DISTINCT o.id) " + from +
+                    "GROUP BY p.seller_id, DATE(o.created_at) " + REBUILD_ON_DUPLICATE);
+            return perCategory + totals;
+        });
+        log.info("Đã dựng rollup doanh thu: {} dòng", rows);
+    }
+
+    private Map<Key, Delta> loadDeltas(Collection<Long> orderIds) {
+        Map<Key, Delta> deltas = new HashMap<>();
+        for (Object[] row : orderItemRepository.findRevenueRowsByOrderIds(orderIds)) {
+            add(deltas, (Long) row[0], (LocalDateTime) row[1], (Long) row[2], (Long) row[3],
+                    (BigDecimal) row[4], (Integer) row[5]);
+        }
+        return deltas;
+    }
+
+    private void add(Map<Key, Delta> deltas, Long sellerId, LocalDateTime createdAt, Long categoryId,
+                     Long orderId, BigDecimal price, Integer quantity) {
+        LocalDate day = createdAt.toLocalDate();
+        BigDecimal revenue = price.multiply(BigDecimal.valueOf(quantity));
+        for (Long category : new Long[]{categoryId, SellerDailyRevenue.ALL_CATEGORIES}) {
+            Delta delta = deltas.computeIfAbsent(new Key(sellerId, day, category), k -> new Delta());
+            delta.revenue = delta.revenue.add(revenue);
+            delta.qty += quantity;
+            delta.orderIds.add(orderId);
+        }
+    }
+
+    private void write(Map<Key, Delta> deltas, int sign) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<Key, Delta> ordered = new TreeMap<>(KEY_ORDER);
+        ordered.putAll(deltas);
+        List<Object[]> args = new ArrayList<>(ordered.size());
+        ordered.forEach((key, delta) -> args.add(new Object[]{
+                key.sellerId(),
+                key.day(),
+                key.categoryId(),
+                sign > 0 ? delta.revenue : delta.revenue.negate(),
+                sign * delta.qty,
+                sign * delta.orderIds.size()}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+    }
+}
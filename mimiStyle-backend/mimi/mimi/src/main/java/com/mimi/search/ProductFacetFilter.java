@@ -0,0 +1,29 @@
+package com.mimi.search;
+
+import com.mimi.domain.enums.ProductStatus;
+import com.mimi.domain.enums.TradeType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Bộ lọc facet: các giá trị trong cùng một facet được OR, các facet khác nhau được AND.
+ * Trường null/rỗng nghĩa là không lọc theo facet đó.
+ */
+@Data
+@NoArgsConstructor
+public class ProductFacetFilter {
+    private List<Long> categoryIds;
+    private List<TradeType> tradeTypes;
+    private List<ProductStatus> statuses;
+    /** Khoảng độ mới, ví dụ "90-100" (xem ProductFacetIndex.CONDITION_BANDS) */
+    private List<String> conditionBands;
+    private Boolean isNew;
+    private Boolean featured;
+    private BigDecimal minBuyPrice;
+    private BigDecimal maxBuyPrice;
+    private BigDecimal minRentPrice;
+    private BigDecimal maxRentPrice;
+}
@@ -0,0 +1,290 @@
+package com.mimi.search;
+
+import com.mimi.domain.Product;
+import com.mimi.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap index cho lọc sản phẩm theo facet: mỗi giá trị facet giữ một BitSet đánh dấu
+ * ordinal của các sản phẩm mang giá trị đó. Lọc kết hợp là phép AND/OR giữa các bitmap,
+ * số đếm facet là cardinality của giao, không cần GROUP BY trên MySQL.
+ * <p>
+ * Ordinal được cấp tăng dần theo createdAt và không tái sử dụng (sản phẩm bị xóa chỉ tắt bit),
+ * nên bitmap luôn dày đặc và duyệt ngược ordinal cho ra thứ tự mới nhất trước.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String TRADE_TYPE = "tradeType";
+    public static final String STATUS = "status";
+    public static final String CONDITION = "condition";
+    public static final String IS_NEW = "isNew";
+    public static final String FEATURED = "featured";
+    public static final String BUY_PRICE = "buyPrice";
+    public static final String RENT_PRICE = "rentPrice";
+
+    public static final List<String> CONDITION_BANDS = List.of("0-49", "50-69", "70-89", "90-100");
+    private static final long[] PRICE_BAND_BOUNDS = { 100_000L, 500_000L, 1_000_000L, 5_000_000L };
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinals = new LinkedHashMap<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<BigDecimal> buyPrices = new ArrayList<>();
+    private final List<BigDecimal> rentPrices = new ArrayList<>();
+    /** ordinal → (facet → giá trị), dùng để tắt đúng các bit khi cập nhật/xóa */
+    private final List<Map<String, String>> assignedValues = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, Map<String, BitSet>> bitmaps = new LinkedHashMap<>();
+
+    public record Result(List<Long> productIds, int total, Map<String, Map<String, Integer>> facets) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = productRepository.findAllByOrderByCreatedAtAscIdAsc();
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            productIds.clear();
+            buyPrices.clear();
+            rentPrices.clear();
+            assignedValues.clear();
+            live.clear();
+            bitmaps.clear();
+            for (Product product : products) {
+                indexLocked(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indexLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null) {
+                clearOrdinal(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lọc theo filter, trả về id sản phẩm của trang yêu cầu (mới nhất trước)
+     * cùng số đếm cho từng giá trị facet. Số đếm của một facet được tính với
+     * các bộ lọc của mọi facet khác, để client biết chọn thêm giá trị đó sẽ ra bao nhiêu sản phẩm.
+     */
+    public Result query(ProductFacetFilter filter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<String, BitSet> selections = new LinkedHashMap<>();
+            select(selections, CATEGORY, filter.getCategoryIds());
+            select(selections, TRADE_TYPE, filter.getTradeTypes());
+            select(selections, STATUS, filter.getStatuses());
+            select(selections, CONDITION, filter.getConditionBands());
+            select(selections, IS_NEW, filter.getIsNew() == null ? null : List.of(filter.getIsNew()));
+            select(selections, FEATURED, filter.getFeatured() == null ? null : List.of(filter.getFeatured()));
+            BitSet priceMatches = priceMatches(filter);
+
+            BitSet matches = intersect(selections, null, priceMatches);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, BitSet>> dimension : bitmaps.entrySet()) {
+                BitSet base = intersect(selections, dimension.getKey(), priceMatches);
+                Map<String, Integer> counts = new LinkedHashMap<>();
+                for (Map.Entry<String, BitSet> value : dimension.getValue().entrySet()) {
+                    BitSet hits = (BitSet) base.clone();
+                    hits.and(value.getValue());
+                    counts.put(value.getKey(), hits.cardinality());
+                }
+                facets.put(dimension.getKey(), counts);
+            }
+
+            List<Long> page = new ArrayList<>(Math.max(0, limit));
+            int skipped = 0;
+            for (int i = matches.previousSetBit(matches.length() - 1);
+                    i >= 0 && page.size() < limit;
+                    i = matches.previousSetBit(i - 1)) {
+                if (skipped++ < offset) {
+                    continue;
+                }
+                page.add(productIds.get(i));
+            }
+            return new Result(page, matches.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexLocked(Product product) {
+        Integer ordinal = ordinals.get(product.getId());
+        if (ordinal == null) {
+            ordinal = productIds.size();
+            ordinals.put(product.getId(), ordinal);
+            productIds.add(product.getId());
+            buyPrices.add(null);
+            rentPrices.add(null);
+            assignedValues.add(Map.of());
+        } else {
+            clearOrdinal(ordinal);
+        }
+
+        Map<String, String> values = facetValues(product);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            bitmaps.computeIfAbsent(entry.getKey(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(entry.getValue(), v -> new BitSet())
+                    .set(ordinal);
+        }
+        assignedValues.set(ordinal, values);
+        buyPrices.set(ordinal, product.getBuyPrice());
+        rentPrices.set(ordinal, product.getRentPrice());
+        live.set(ordinal);
+    }
+
+    private void clearOrdinal(int ordinal) {
+        for (Map.Entry<String, String> entry : assignedValues.get(ordinal).entrySet()) {
+            Map<String, BitSet> values = bitmaps.get(entry.getKey());
+            BitSet bitmap = values == null ? null : values.get(entry.getValue());
+            if (bitmap != null) {
+                bitmap.clear(ordinal);
+            }
+        }
+        assignedValues.set(ordinal, Map.of());
+        live.clear(ordinal);
+    }
+
+    private Map<String, String> facetValues(Product product) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (product.getCategory() != null) {
+            values.put(CATEGORY, String.valueOf(product.getCategory().getId()));
+        }
+        if (product.getTradeType() != null) {
+            values.put(TRADE_TYPE, product.getTradeType().name());
+        }
+        if (product.getStatus() != null) {
+            values.put(STATUS, product.getStatus().name());
+        }
+        if (product.getConditionPercentage() != null) {
+            values.put(CONDITION, conditionBand(product.getConditionPercentage()));
+        }
+        values.put(IS_NEW, String.valueOf(Boolean.TRUE.equals(product.getIsNew())));
+        values.put(FEATURED, String.valueOf(Boolean.TRUE.equals(product.getFeatured())));
+        if (product.getBuyPrice() != null) {
+            values.put(BUY_PRICE, priceBand(product.getBuyPrice()));
+        }
+        if (product.getRentPrice() != null) {
+            values.put(RENT_PRICE, priceBand(product.getRentPrice()));
+        }
+        return values;
+    }
+
+    private static String conditionBand(int percentage) {
+        if (percentage >= 90) {
+            return CONDITION_BANDS.get(3);
+        }
+        if (percentage >= 70) {
+            return CONDITION_BANDS.get(2);
+        }
+        if (percentage >= 50) {
+            return CONDITION_BANDS.get(1);
+        }
+        return CONDITION_BANDS.get(0);
+    }
+
+    private static String priceBand(BigDecimal price) {
+        long lower = 0;
+        for (long bound : PRICE_BAND_BOUNDS) {
+            if (price.compareTo(BigDecimal.valueOf(bound)) < 0) {
+                return lower + "-" + bound;
+            }
+            lower = bound;
+        }
+        return lower + "+";
+    }
+
+    private void select(Map<String, BitSet> selections, String dimension, Collection<?> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        Map<String, BitSet> valueBitmaps = bitmaps.getOrDefault(dimension, Map.of());
+        BitSet union = new BitSet();
+        for (Object value : values) {
+            BitSet bitmap = valueBitmaps.get(String.valueOf(value));
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        }
+        selections.put(dimension, union);
+    }
+
+    private BitSet intersect(Map<String, BitSet> selections, String excludedDimension, BitSet priceMatches) {
+        BitSet result = (BitSet) live.clone();
+        for (Map.Entry<String, BitSet> selection : selections.entrySet()) {
+            if (!selection.getKey().equals(excludedDimension)) {
+                result.and(selection.getValue());
+            }
+        }
+        if (priceMatches != null) {
+            result.and(priceMatches);
+        }
+        return result;
+    }
+
+    /** Khoảng giá là liên tục nên lọc trên mảng giá theo ordinal thay vì bitmap. */
+    private BitSet priceMatches(ProductFacetFilter filter) {
+        boolean buyRange = filter.getMinBuyPrice() != null || filter.getMaxBuyPrice() != null;
+        boolean rentRange = filter.getMinRentPrice() != null || filter.getMaxRentPrice() != null;
+        if (!buyRange && !rentRange) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            if (buyRange && !inRange(buyPrices.get(i), filter.getMinBuyPrice(), filter.getMaxBuyPrice())) {
+                continue;
+            }
+            if (rentRange && !inRange(rentPrices.get(i), filter.getMinRentPrice(), filter.getMaxRentPrice())) {
+                continue;
+            }
+            result.set(i);
+        }
+        return result;
+    }
+
+    private static boolean inRange(BigDecimal price, BigDecimal min, BigDecimal max) {
+        if (price == null) {
+            return false;
+        }
+        return (min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0);
+    }
+}
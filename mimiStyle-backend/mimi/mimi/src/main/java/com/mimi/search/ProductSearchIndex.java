@@ -0,0 +1,166 @@
+package com.mimi.search;
+
+import com.mimi.domain.Product;
+import com.mimi.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index trong bộ nhớ trên name/description/specifications của sản phẩm, xếp hạng bằng BM25.
+ * Được dựng lại khi ứng dụng khởi động và cập nhật từng sản phẩm từ ProductServiceImpl,
+ * nên truy vấn tìm kiếm không bao giờ chạm tới MySQL.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    /** Token trong tên sản phẩm được tính nặng hơn mô tả. */
+    private static final int NAME_WEIGHT = 3;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** term → (productId → term frequency) */
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    /** productId → các term đã index, dùng khi xóa/cập nhật */
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = productRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            documentLengths.clear();
+            totalLength = 0;
+            for (Product product : products) {
+                addDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Trả về id sản phẩm theo thứ tự điểm BM25 giảm dần. */
+    public List<Long> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(TextNormalizer.tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documentLengths.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<Long, Integer> postingList = postings.get(term);
+                if (postingList == null) {
+                    continue;
+                }
+                int df = postingList.size();
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+                    int tf = posting.getValue();
+                    int length = documentLengths.get(posting.getKey());
+                    double norm = tf + K1 * (1 - B + B * length / averageLength);
+                    scores.merge(posting.getKey(), idf * tf * (K1 + 1) / norm, Double::sum);
+                }
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            List<Long> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                ids.add(ranked.get(i).getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String token : TextNormalizer.tokenize(product.getName())) {
+            frequencies.merge(token, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String field : new String[] { product.getDescription(), product.getSpecifications() }) {
+            for (String token : TextNormalizer.tokenize(field)) {
+                frequencies.merge(token, 1, Integer::sum);
+                length++;
+            }
+        }
+
+        Long id = product.getId();
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, tf));
+        documentTerms.put(id, frequencies.keySet());
+        documentLengths.put(id, length);
+        totalLength += length;
+    }
+
+    private void removeDocument(Long productId) {
+        Set<String> terms = documentTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        Integer length = documentLengths.remove(productId);
+        if (length != null) {
+            totalLength -= length;
+        }
+    }
+}
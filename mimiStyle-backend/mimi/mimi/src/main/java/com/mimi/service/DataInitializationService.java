@@ -10,25 +10,37 @@ import com.mimi.repository.UserRepository;
 import com.mimi.repository.VoucherRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class DataInitializationService {
 
+    /** Các bảng dùng @TableGenerator "id_generators"; phải khớp pkColumnValue trên entity. */
+    private static final List<String> POOLED_ID_TABLES = List.of("products", "product_images", "orders", "order_items",
+            "outbox_events");
+    /** Lớn hơn allocationSize của mọi @TableGenerator */
+    private static final int ID_GENERATOR_HEADROOM = 51;
+
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
     private final VoucherRepository voucherRepository;
     private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
 
     @PostConstruct
     public void initializeData() {
+        seedIdGenerators();
+        backfillProductCreatedAt();
+
         // Create default user if not exists
         if (userRepository.count() == 0) {
             User defaultUser = new User();
@@ -79,4 +91,25 @@ public class DataInitializationService {
             voucherRepository.save(v3);
         }
     }
+
+    /**
+     * Các bảng trước đây dùng AUTO_INCREMENT đã có dữ liệu: đẩy giá trị của table generator
+     * lên trên MAX(id) hiện có để id cấp phát theo block không bao giờ trùng dòng cũ.
+     */
+    private void seedIdGenerators() {
+        for (String table : POOLED_ID_TABLES) {
+            jdbcTemplate.update("INSERT INTO id_generators (gen_name, gen_value) " +
+                    "SELECT ?, COALESCE(MAX(id), 0) + ? FROM " + table + " " +
+                    "ON DUPLICATE KEY UPDATE gen_value = GREATEST(gen_value, VALUES(gen_value))",
+                    table, ID_GENERATOR_HEADROOM);
+        }
+    }
+
+    /**
+     * products.created_at là khóa của cursor phân trang nên không được NULL. Dòng cũ thiếu giá trị được gán mốc 1970
+     * (vẫn xếp cuối danh sách như khi còn NULL); ddl-auto không tự thêm NOT NULL cho cột đã có, xem V14.
+     */
+    private void backfillProductCreatedAt() {
+        jdbcTemplate.update("UPDATE products SET created_at = '1970-01-01 00:00:00' WHERE created_at IS NULL");
+    }
 }
@@ -1,18 +1,32 @@
 package com.mimi.service;
 
 import com.mimi.domain.Order;
+import com.mimi.domain.enums.OrderStatus;
 import com.mimi.dto.request.CreateOrderRequest;
 import com.mimi.dto.request.UpdateOrderStatusRequest;
+import com.mimi.dto.response.BulkOrderStatusResponse;
+import com.mimi.dto.response.CursorPageResponse;
 import com.mimi.dto.response.OrderResponse;
+import com.mimi.repository.projection.SellerOrderView;
+import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrderService {
     Order createOrder(CreateOrderRequest request);
+    Order getOrderById(Long orderId);
     Order updateOrderStatus(Long orderId, UpdateOrderStatusRequest request);
+    BulkOrderStatusResponse updateOrderStatuses(List<Long> orderIds, OrderStatus status);
     List<Order> getOrdersByBuyer(Long buyerId);
     List<OrderResponse> getOrderResponsesByBuyer(Long buyerId);
+    CursorPageResponse<OrderResponse> getOrderHistoryPage(Long buyerId, String cursor, Integer size);
+    Page<SellerOrderView> getSellerOrderPage(Long sellerId, OrderStatus status, LocalDateTime from, LocalDateTime to,
+                                             Integer page, Integer size);
     List<OrderResponse> getAllOrders();
+    void exportOrders(OrderStatus status, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException;
     void returnRentalOrder(Long orderId);
     void refundDeposit(Long orderId);
     void deleteOrder(Long orderId);
@@ -0,0 +1,13 @@
+package com.mimi.service;
+
+import com.mimi.dto.response.ProductImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ProductImportService {
+
+    enum Format { CSV, NDJSON }
+
+    ProductImportResponse importProducts(InputStream input, Format format) throws IOException;
+}
@@ -0,0 +1,144 @@
+package com.mimi.service;
+
+import com.mimi.domain.Category;
+import com.mimi.domain.Product;
+import com.mimi.domain.User;
+import com.mimi.dto.response.ProductResponse;
+import com.mimi.repository.CategoryRepository;
+import com.mimi.repository.ProductImageRepository;
+import com.mimi.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Dựng ProductResponse cho cả một danh sách sản phẩm với số truy vấn cố định:
+ * ảnh của mọi sản phẩm được lấy bằng một truy vấn IN (...), seller/category
+ * chưa được fetch (proxy LAZY) cũng được nạp theo lô thay vì từng dòng.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductResponseAssembler {
+
+    /** Giới hạn số phần tử trong một mệnh đề IN. */
+    private static final int IN_CLAUSE_CHUNK = 500;
+
+    private final ProductImageRepository productImageRepository;
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+
+    public ProductResponse toResponse(Product product) {
+        return toResponses(List.of(product)).get(0);
+    }
+
+    public List<ProductResponse> toResponses(List<Product> products) {
+        if (products == null || products.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, User> sellers = loadUninitialized(products, Product::getSeller, User::getId,
+                userRepository::findAllById);
+        Map<Long, Category> categories = loadUninitialized(products, Product::getCategory, Category::getId,
+                categoryRepository::findAllById);
+        Map<Long, List<String>> imagesByProduct = loadImageUrls(products);
+
+        List<ProductResponse> responses = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ProductResponse response = mapScalarFields(product);
+
+            if (product.getSeller() != null) {
+                User seller = sellers.getOrDefault(product.getSeller().getId(), product.getSeller());
+                response.setSellerId(seller.getId());
+                response.setSellerName(seller.getFullName());
+            }
+
+            if (product.getCategory() != null) {
+                Category category = categories.getOrDefault(product.getCategory().getId(), product.getCategory());
+                response.setCategoryId(category.getId());
+                response.setCategoryName(category.getName());
+            }
+
+            List<String> images = imagesByProduct.get(product.getId());
+            if (images != null && !images.isEmpty()) {
+                response.setImages(images);
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    private ProductResponse mapScalarFields(Product product) {
+        ProductResponse response = new ProductResponse();
+        response.setId(product.getId());
+        response.setName(product.getName());
+        response.setDescription(product.getDescription());
+        response.setConditionPercentage(product.getConditionPercentage());
+        response.setTradeType(product.getTradeType());
+        response.setBuyPrice(product.getBuyPrice());
+        response.setRentPrice(product.getRentPrice());
+        response.setRentUnit(product.getRentUnit());
+        response.setStatus(product.getStatus());
+        response.setAddressContact(product.getAddressContact());
+        response.setFeatured(product.getFeatured());
+        response.setIsNew(product.getIsNew());
+        response.setCreatedAt(product.getCreatedAt());
+        return response;
+    }
+
+    /**
+     * Nạp theo lô các quan hệ ManyToOne còn là proxy chưa khởi tạo.
+     * Đọc id từ proxy không kích hoạt lazy load nên chỉ tốn một truy vấn cho mỗi lô.
+     */
+    private <T> Map<Long, T> loadUninitialized(List<Product> products,
+                                               Function<Product, T> association,
+                                               Function<T, Long> idOf,
+                                               Function<Collection<Long>, List<T>> loader) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Product product : products) {
+            T value = association.apply(product);
+            if (value != null && !Hibernate.isInitialized(value)) {
+                ids.add(idOf.apply(value));
+            }
+        }
+        Map<Long, T> loaded = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            for (T value : loader.apply(chunk)) {
+                loaded.put(idOf.apply(value), value);
+            }
+        }
+        return loaded;
+    }
+
+    private Map<Long, List<String>> loadImageUrls(List<Product> products) {
+        Set<Long> productIds = products.stream()
+                .map(Product::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<Long, List<String>> imagesByProduct = new HashMap<>();
+        for (List<Long> chunk : chunks(productIds)) {
+            for (Object[] row : productImageRepository.findImageUrlsByProductIds(chunk)) {
+                imagesByProduct.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+            }
+        }
+        return imagesByProduct;
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += IN_CLAUSE_CHUNK) {
+            chunks.add(all.subList(i, Math.min(i + IN_CLAUSE_CHUNK, all.size())));
+        }
+        return chunks;
+    }
+}
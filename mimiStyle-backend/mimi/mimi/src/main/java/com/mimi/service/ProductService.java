@@ -1,13 +1,26 @@
 package com.mimi.service;
 
 import com.mimi.domain.Product;
+import com.mimi.domain.enums.ProductStatus;
+import com.mimi.domain.enums.TradeType;
+import com.mimi.dto.response.CursorPageResponse;
+import com.mimi.dto.response.FacetedProductResponse;
+import com.mimi.dto.response.SellerProductCounts;
+import com.mimi.search.ProductFacetFilter;
+
 import java.util.List;
 
 public interface ProductService {
     List<Product> getAllProducts();
+    CursorPageResponse<Product> getProductPage(String cursor, Integer size, Long categoryId,
+                                               TradeType tradeType, ProductStatus status);
+    List<Product> searchProducts(String query, Integer limit);
+    FacetedProductResponse filterProducts(ProductFacetFilter filter, Integer page, Integer size);
     List<Product> getProductsByUserId(Long userId);
+    List<Product> getSellerProductPage(Long sellerId, Integer page, Integer size, String sort);
+    SellerProductCounts countSellerProducts(Long sellerId);
     Product saveProduct(Product product);
     Product updateProduct(Long id, Product product);
     void deleteProduct(Long id);
     Product getProductById(Long id);
-}
\ No newline at end of file
+}
@@ -3,13 +3,20 @@ package com.mimi.service;
 import com.mimi.dto.response.DailyRevenueResponse;
 import com.mimi.dto.response.RevenueResponse;
 import com.mimi.dto.response.SoldProductResponse;
+import com.mimi.export.ExportFormat;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
 
 public interface RevenueService {
-    RevenueResponse getRevenueSummary(Long userId, LocalDate startDate, LocalDate endDate, String category);
-    List<SoldProductResponse> getSoldProducts(Long userId, LocalDate startDate, LocalDate endDate, String category);
+    RevenueResponse getRevenueSummary(Long userId, LocalDate startDate, LocalDate endDate, String category,
+                                      Long categoryId, boolean includeSubcategories);
+    List<SoldProductResponse> getSoldProducts(Long userId, LocalDate startDate, LocalDate endDate, String category,
+                                              Long categoryId, boolean includeSubcategories);
+    void exportSoldItems(Long userId, LocalDate startDate, LocalDate endDate, String category, Long categoryId,
+                         boolean includeSubcategories, ExportFormat format, OutputStream out) throws IOException;
     List<DailyRevenueResponse> getDailyRevenue(Long userId, LocalDate startDate, LocalDate endDate);
     List<DailyRevenueResponse> getWeeklyRevenue(Long userId, LocalDate startDate, LocalDate endDate);
 }
\ No newline at end of file
@@ -3,35 +3,84 @@ package com.mimi.service.impl;
 import com.mimi.domain.Order;
 import com.mimi.domain.OrderItem;
 import com.mimi.domain.Product;
-import com.mimi.domain.ProductImage;
+import com.mimi.domain.ProductVariant;
 import com.mimi.domain.User;
+import com.mimi.domain.enums.OrderStatus;
 import com.mimi.domain.enums.OrderType;
 import com.mimi.dto.request.CreateOrderRequest;
 import com.mimi.dto.request.UpdateOrderStatusRequest;
+import com.mimi.dto.response.BulkOrderStatusResponse;
+import com.mimi.dto.response.CursorPageResponse;
 import com.mimi.dto.response.OrderItemResponse;
 import com.mimi.dto.response.OrderResponse;
+import com.mimi.inventory.StockReservationService;
+import com.mimi.outbox.OrderOutbox;
+import com.mimi.rental.RentalAvailabilityIndex;
+import com.mimi.revenue.SellerRevenueRollup;
+import com.mimi.repository.OrderItemRepository;
 import com.mimi.repository.OrderRepository;
 import com.mimi.repository.ProductImageRepository;
 import com.mimi.repository.ProductRepository;
+import com.mimi.repository.ProductVariantRepository;
 import com.mimi.repository.UserRepository;
+import com.mimi.repository.projection.OrderHeaderView;
+import com.mimi.repository.projection.OrderItemView;
+import com.mimi.repository.projection.SellerOrderView;
+import com.mimi.service.CreatedAtCursor;
 import com.mimi.service.OrderService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    private static final int MAX_BULK_ORDERS = 500;
+    /** Số đơn dựng và ghi ra mỗi lần khi export; cũng là giới hạn số phần tử trong IN (...). */
+    private static final int EXPORT_BATCH_SIZE = 200;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    /** Giới hạn số phần tử trong một mệnh đề IN. */
+    private static final int IN_CLAUSE_CHUNK = 500;
+
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final StockReservationService stockReservationService;
+    private final RentalAvailabilityIndex rentalAvailabilityIndex;
+    private final OrderOutbox orderOutbox;
+    private final SellerRevenueRollup sellerRevenueRollup;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Override
     @Transactional
@@ -46,10 +95,12 @@ public class OrderServiceImpl implements OrderService {
         List<OrderItem> orderItems = new ArrayList<>();
         boolean hasRentalItem = false;
         Integer maxRentDuration = null;
+        Map<Long, Product> products = loadOrderProducts(request.getItems());
+        Map<Long, ProductVariant> variants = loadOrderVariants(request.getItems());
+        Map<Long, Integer> variantQuantities = new HashMap<>();
 
         for (CreateOrderRequest.OrderItemRequest itemReq : request.getItems()) {
-            Product product = productRepository.findById(itemReq.getProductId())
-                    .orElseThrow(() -> new IllegalArgumentException("Product not found: " + itemReq.getProductId()));
+            Product product = products.get(itemReq.getProductId());
             int qty = itemReq.getQuantity() != null && itemReq.getQuantity() > 0 ? itemReq.getQuantity() : 1;
             
             // Xác định loại đơn hàng và giá
@@ -87,7 +138,15 @@ public class OrderServiceImpl implements OrderService {
             oi.setPrice(price);
             oi.setOrderType(orderType);
             oi.setRentDuration(rentDuration);
-            oi.setVariant(null);
+            if (itemReq.getVariantId() != null) {
+                ProductVariant variant = variants.get(itemReq.getVariantId());
+                if (!variant.getProduct().getId().equals(product.getId())) {
+                    throw new IllegalArgumentException("Variant " + variant.getId()
+                            + " không thuộc sản phẩm " + product.getId());
+                }
+                oi.setVariant(variant);
+                variantQuantities.merge(variant.getId(), qty, Integer::sum);
+            }
             orderItems.add(oi);
         }
 
@@ -118,22 +177,203 @@ public class OrderServiceImpl implements OrderService {
         }
         order.setDepositRefunded(false);
 
+        // Giữ hàng trên bộ đếm trong bộ nhớ (không khóa dòng); tự xác nhận khi commit, trả lại khi rollback
+        if (!variantQuantities.isEmpty()) {
+            stockReservationService.reserve(variantQuantities);
+        }
+
         for (OrderItem oi : orderItems) {
             oi.setOrder(order);
         }
         order.setOrderItems(orderItems);
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        if (hasRentalItem) {
+            // Id đã được cấp khi persist; trùng lịch thì ném lỗi và cả transaction rollback
+            rentalAvailabilityIndex.book(saved.getId(), rentalAvailabilityIndex.windowsOf(saved));
+        }
+        sellerRevenueRollup.orderCreated(saved);
+        orderOutbox.orderCreated(saved.getId(), saved.getStatus());
+        return saved;
+    }
+
+    /**
+     * Nạp mọi sản phẩm trong giỏ bằng một truy vấn IN (...) thay vì findById cho từng dòng.
+     * Id trùng nhau chỉ kiểm tra một lần; nếu thiếu sản phẩm thì báo lỗi liệt kê đủ các id không tồn tại.
+     */
+    private Map<Long, Product> loadOrderProducts(List<CreateOrderRequest.OrderItemRequest> items) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CreateOrderRequest.OrderItemRequest itemReq : items) {
+            if (itemReq.getProductId() == null) {
+                throw new IllegalArgumentException("Product id is required for every item");
+            }
+            productIds.add(itemReq.getProductId());
+        }
+
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Long> missing = productIds.stream()
+                .filter(id -> !products.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Product not found: " + missing.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", ")));
+        }
+        return products;
     }
 
+    private Map<Long, ProductVariant> loadOrderVariants(List<CreateOrderRequest.OrderItemRequest> items) {
+        Set<Long> variantIds = items.stream()
+                .map(CreateOrderRequest.OrderItemRequest::getVariantId)
+                .filter(id -> id != null)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (variantIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, ProductVariant> variants = productVariantRepository.findAllById(variantIds).stream()
+                .collect(Collectors.toMap(ProductVariant::getId, Function.identity()));
+        List<Long> missing = variantIds.stream()
+                .filter(id -> !variants.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Variant not found: " + missing.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", ")));
+        }
+        return variants;
+    }
+
+    @Override
+    public Order getOrderById(Long orderId) {
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    }
+
+    /**
+     * Đổi trạng thái một đơn với cùng tác động phụ như đường hàng loạt. Giữ hành vi cũ của endpoint này:
+     * không áp luồng trạng thái chặt (người bán xác nhận thanh toán PENDING → SHIPPING, admin chọn trạng thái tự do).
+     */
     @Override
     @Transactional
     public Order updateOrderStatus(Long orderId, UpdateOrderStatusRequest request) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
         if (request.getStatus() != null) {
-            order.setStatus(request.getStatus());
+            requireUpdated(changeStatuses(List.of(orderId), request.getStatus(), false).get(0));
+        }
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    }
+
+    /** Đổi trạng thái nhiều đơn; trạng thái không đổi hoặc luồng không hợp lệ được báo riêng cho từng đơn. */
+    @Override
+    @Transactional
+    public BulkOrderStatusResponse updateOrderStatuses(List<Long> orderIds, OrderStatus target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Thiếu trạng thái đích");
+        }
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("Danh sách đơn hàng trống");
+        }
+        Set<Long> ids = new LinkedHashSet<>(orderIds);
+        ids.remove(null);
+        if (ids.size() > MAX_BULK_ORDERS) {
+            throw new IllegalArgumentException("Tối đa " + MAX_BULK_ORDERS + " đơn mỗi lần");
+        }
+
+        List<BulkOrderStatusResponse.Result> results = changeStatuses(ids, target, true);
+        int updated = (int) results.stream()
+                .filter(result -> result.getOutcome() == BulkOrderStatusResponse.Outcome.UPDATED)
+                .count();
+
+        BulkOrderStatusResponse response = new BulkOrderStatusResponse();
+        response.setTargetStatus(target);
+        response.setUpdated(updated);
+        response.setFailed(ids.size() - updated);
+        response.setResults(results);
+        return response;
+    }
+
+    /**
+     * Đường đổi trạng thái duy nhất: khóa các đơn bằng SELECT ... FOR UPDATE (theo thứ tự id), kiểm tra luồng
+     * trạng thái nếu strict, rồi mỗi trạng thái nguồn chạy một câu UPDATE ... WHERE id IN (...) và áp tác động phụ
+     * (rollup doanh thu, outbox, trả hàng về kho, lịch thuê) cho đúng các đơn vừa đổi.
+     * Vì các dòng đã bị khóa, request đồng thời phải chờ và sẽ thấy trạng thái mới, nên không áp tác động phụ hai lần.
+     */
+    private List<BulkOrderStatusResponse.Result> changeStatuses(Collection<Long> ids, OrderStatus target,
+                                                              boolean strict) {
+        Map<Long, OrderStatus> current = new HashMap<>();
+        for (Object[] row : orderRepository.lockStatusesByIds(ids)) {
+            current.put(((Number) row[0]).longValue(), OrderStatus.valueOf((String) row[1]));
+        }
+
+        Map<Long, BulkOrderStatusResponse.Result> results = new LinkedHashMap<>();
+        Map<OrderStatus, List<Long>> bySource = new EnumMap<>(OrderStatus.class);
+        for (Long id : ids) {
+            OrderStatus from = current.get(id);
+            if (from == null) {
+                results.put(id, new BulkOrderStatusResponse.Result(id, null,
+                        BulkOrderStatusResponse.Outcome.NOT_FOUND, "Order not found"));
+            } else if (from == target) {
+                results.put(id, new BulkOrderStatusResponse.Result(id, from,
+                        BulkOrderStatusResponse.Outcome.UNCHANGED, "Đơn đã ở trạng thái " + target));
+            } else if (strict && !from.canTransitionTo(target)) {
+                results.put(id, new BulkOrderStatusResponse.Result(id, from,
+                        BulkOrderStatusResponse.Outcome.INVALID_TRANSITION,
+                        "Không thể chuyển từ " + from + " sang " + target));
+            } else {
+                bySource.computeIfAbsent(from, k -> new ArrayList<>()).add(id);
+                results.put(id, new BulkOrderStatusResponse.Result(id, from,
+                        BulkOrderStatusResponse.Outcome.UPDATED, null));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<OrderStatus, List<Long>> group : bySource.entrySet()) {
+            OrderStatus from = group.getKey();
+            List<Long> groupIds = group.getValue();
+            int count = target == OrderStatus.RETURNED
+                    ? orderRepository.markReturnedBulk(groupIds, from, now)
+                    : orderRepository.updateStatusBulk(groupIds, from, target);
+            if (count != groupIds.size()) {
+                // Không xảy ra khi các dòng đang bị khóa; rollback thay vì áp tác động phụ sai
+                throw new IllegalStateException("Cập nhật " + count + "/" + groupIds.size()
+                        + " đơn từ " + from + " sang " + target);
+            }
+            applyStatusSideEffects(groupIds, from, target);
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    private void requireUpdated(BulkOrderStatusResponse.Result result) {
+        if (result.getOutcome() == BulkOrderStatusResponse.Outcome.NOT_FOUND
+                || result.getOutcome() == BulkOrderStatusResponse.Outcome.INVALID_TRANSITION) {
+            throw new IllegalArgumentException(result.getMessage());
+        }
+    }
+
+    /** Tác động phụ của các đơn vừa chuyển từ from sang target (cùng một transaction với UPDATE). */
+    private void applyStatusSideEffects(List<Long> orderIds, OrderStatus from, OrderStatus target) {
+        sellerRevenueRollup.statusChanged(orderIds, from, target);
+        orderOutbox.statusChanged(orderIds, from, target);
+        if (target == OrderStatus.CANCELLED || target == OrderStatus.RETURNED) {
+            // Hủy: trả lại mọi dòng; trả đồ thuê: chỉ các dòng thuê quay lại kho
+            restock(orderIds, target == OrderStatus.RETURNED ? OrderType.RENT : null);
+        }
+        if (target == OrderStatus.OVERDUE) {
+            rentalAvailabilityIndex.markOverdue(orderIds);
+        } else if (!RentalAvailabilityIndex.ACTIVE_STATUSES.contains(target)) {
+            for (Long orderId : orderIds) {
+                rentalAvailabilityIndex.release(orderId);
+            }
         }
-        return orderRepository.save(order);
+    }
+
+    /** Trả số lượng variant của các đơn về kho (onlyType = null: mọi dòng hàng). */
+    private void restock(List<Long> orderIds, OrderType onlyType) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Object[] row : orderItemRepository.sumVariantQuantitiesByOrderIds(orderIds, onlyType)) {
+            quantities.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        stockReservationService.restock(quantities);
     }
 
     @Override
@@ -144,51 +384,190 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrderResponsesByBuyer(Long buyerId) {
-        List<Order> orders = orderRepository.findByBuyerIdOrderByCreatedAtDesc(buyerId);
-        return orders.stream().map(this::toOrderResponse).collect(java.util.stream.Collectors.toList());
+        return toHistoryResponses(orderRepository.findHistoryByBuyer(buyerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<SellerOrderView> getSellerOrderPage(Long sellerId, OrderStatus status, LocalDateTime from,
+                                                    LocalDateTime to, Integer page, Integer size) {
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Thứ tự (createdAt, id) giảm dần đã nằm trong câu truy vấn
+        return orderRepository.findSellerOrders(sellerId, status, from, to, PageRequest.of(pageNumber, pageSize));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<OrderResponse> getOrderHistoryPage(Long buyerId, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Lấy dư 1 dòng để biết còn trang sau hay không mà không cần COUNT
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<OrderHeaderView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findHistoryFirstPage(buyerId, limit);
+        } else {
+            CreatedAtCursor after = CreatedAtCursor.decode(cursor);
+            rows = orderRepository.findHistoryPageAfter(buyerId, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<OrderHeaderView> headers = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            OrderHeaderView last = headers.get(headers.size() - 1);
+            if (last.createdAt() != null) {
+                nextCursor = new CreatedAtCursor(last.createdAt(), last.id()).encode();
+            } else {
+                hasMore = false;
+            }
+        }
+        return new CursorPageResponse<>(toHistoryResponses(headers), nextCursor, hasMore);
+    }
+
+    /**
+     * Dựng lịch sử đơn từ projection: header đơn đã có sẵn, thêm một truy vấn dòng hàng (kèm tên sản phẩm)
+     * và một truy vấn ảnh đại diện cho mỗi lô IN_CLAUSE_CHUNK đơn; không nạp entity Order/Product nào.
+     */
+    private List<OrderResponse> toHistoryResponses(List<OrderHeaderView> headers) {
+        List<OrderResponse> responses = new ArrayList<>(headers.size());
+        for (int i = 0; i < headers.size(); i += IN_CLAUSE_CHUNK) {
+            List<OrderHeaderView> chunk = headers.subList(i, Math.min(i + IN_CLAUSE_CHUNK, headers.size()));
+            List<Long> orderIds = chunk.stream().map(OrderHeaderView::id).collect(Collectors.toList());
+
+            Map<Long, List<OrderItemView>> itemsByOrder = new HashMap<>();
+            Set<Long> productIds = new LinkedHashSet<>();
+            for (OrderItemView item : orderItemRepository.findViewsByOrderIds(orderIds)) {
+                itemsByOrder.computeIfAbsent(item.orderId(), k -> new ArrayList<>()).add(item);
+                productIds.add(item.productId());
+            }
+            Map<Long, String> thumbnails = loadThumbnails(productIds);
+
+            for (OrderHeaderView header : chunk) {
+                List<OrderItemResponse> items = itemsByOrder.getOrDefault(header.id(), List.of()).stream()
+                        .map(item -> new OrderItemResponse(
+                                item.productId(),
+                                item.productName(),
+                                thumbnails.get(item.productId()),
+                                item.quantity(),
+                                item.price(),
+                                item.price().multiply(BigDecimal.valueOf(item.quantity()))))
+                        .collect(Collectors.toList());
+                responses.add(new OrderResponse(
+                        header.id(),
+                        header.createdAt(),
+                        header.status(),
+                        header.shippingName(),
+                        header.shippingPhone(),
+                        header.shippingAddress(),
+                        null,
+                        header.totalAmount(),
+                        header.shippingFee(),
+                        header.discountAmount(),
+                        header.finalAmount(),
+                        items));
+            }
+        }
+        return responses;
+    }
+
+    /** productId -> ảnh đại diện (ảnh đầu tiên), theo lô IN_CLAUSE_CHUNK sản phẩm. */
+    private Map<Long, String> loadThumbnails(Collection<Long> productIds) {
+        Map<Long, String> thumbnails = new HashMap<>();
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = ids.subList(i, Math.min(i + IN_CLAUSE_CHUNK, ids.size()));
+            for (Object[] row : productImageRepository.findThumbnailUrlsByProductIds(chunk)) {
+                thumbnails.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return thumbnails;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<OrderResponse> getAllOrders() {
         List<Order> orders = orderRepository.findAllByOrderByCreatedAtDesc();
-        return orders.stream().map(this::toOrderResponse).collect(java.util.stream.Collectors.toList());
-    }
-
-    private OrderResponse toOrderResponse(Order order) {
-        List<OrderItemResponse> itemResponses = order.getOrderItems() == null ? List.of() :
-            order.getOrderItems().stream().map(oi -> {
-                String url = null;
-                if (oi.getProduct() != null) {
-                    List<ProductImage> imgs = productImageRepository.findByProductId(oi.getProduct().getId());
-                    if (imgs != null && !imgs.isEmpty()) {
-                        url = imgs.get(0).getImageUrl();
-                    }
+        return toOrderResponses(orders);
+    }
+
+    /**
+     * Ghi đơn hàng ra dạng NDJSON (mỗi dòng một OrderResponse) khi đang đọc từ cursor DB.
+     * Mỗi lô EXPORT_BATCH_SIZE đơn được dựng với số truy vấn cố định, ghi ra, flush rồi clear
+     * persistence context, nên bộ nhớ không phụ thuộc tổng số đơn. Client ngắt kết nối thì lần ghi
+     * tiếp theo ném IOException và stream/cursor được đóng ngay.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOrders(OrderStatus status, LocalDateTime from, LocalDateTime to, OutputStream out)
+            throws IOException {
+        List<Order> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+        try (Stream<Order> orders = orderRepository.streamForExport(status, from, to)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == EXPORT_BATCH_SIZE) {
+                    writeNdjson(batch, out);
+                    batch.clear();
                 }
-                return new OrderItemResponse(
-                    oi.getProduct().getId(),
-                    oi.getProduct().getName(),
-                    url,
-                    oi.getQuantity(),
-                    oi.getPrice(),
-                    oi.getPrice().multiply(java.math.BigDecimal.valueOf(oi.getQuantity()))
-                );
-            }).collect(java.util.stream.Collectors.toList());
-
-        return new OrderResponse(
-            order.getId(),
-            order.getCreatedAt(),
-            order.getStatus(),
-            order.getShippingName(),
-            order.getShippingPhone(),
-            order.getShippingAddress(),
-            null,
-            order.getTotalAmount(),
-            order.getShippingFee(),
-            order.getDiscountAmount(),
-            order.getFinalAmount(),
-            itemResponses
-        );
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeNdjson(batch, out);
+        }
+    }
+
+    private void writeNdjson(List<Order> batch, OutputStream out) throws IOException {
+        for (OrderResponse response : toOrderResponses(batch)) {
+            out.write(objectMapper.writeValueAsBytes(response));
+            out.write('\n');
+        }
+        out.flush();
+        entityManager.clear();
+    }
+
+    /** Dựng OrderResponse cho nhiều đơn: dòng hàng + sản phẩm và ảnh đại diện được nạp theo lô. */
+    private List<OrderResponse> toOrderResponses(List<Order> orders) {
+        List<OrderResponse> responses = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i += EXPORT_BATCH_SIZE) {
+            List<Order> chunk = orders.subList(i, Math.min(i + EXPORT_BATCH_SIZE, orders.size()));
+            List<Long> orderIds = chunk.stream().map(Order::getId).collect(Collectors.toList());
+
+            Map<Long, List<OrderItem>> itemsByOrder = new HashMap<>();
+            Set<Long> productIds = new LinkedHashSet<>();
+            for (OrderItem oi : orderItemRepository.findWithProductByOrderIds(orderIds)) {
+                itemsByOrder.computeIfAbsent(oi.getOrder().getId(), k -> new ArrayList<>()).add(oi);
+                productIds.add(oi.getProduct().getId());
+            }
+            Map<Long, String> thumbnails = loadThumbnails(productIds);
+
+            for (Order order : chunk) {
+                List<OrderItemResponse> items = itemsByOrder.getOrDefault(order.getId(), List.of()).stream()
+                        .map(oi -> new OrderItemResponse(
+                                oi.getProduct().getId(),
+                                oi.getProduct().getName(),
+                                thumbnails.get(oi.getProduct().getId()),
+                                oi.getQuantity(),
+                                oi.getPrice(),
+                                oi.getPrice().multiply(BigDecimal.valueOf(oi.getQuantity()))))
+                        .collect(Collectors.toList());
+                responses.add(new OrderResponse(
+                        order.getId(),
+                        order.getCreatedAt(),
+                        order.getStatus(),
+                        order.getShippingName(),
+                        order.getShippingPhone(),
+                        order.getShippingAddress(),
+                        null,
+                        order.getTotalAmount(),
+                        order.getShippingFee(),
+                        order.getDiscountAmount(),
+                        order.getFinalAmount(),
+                        items));
+            }
+        }
+        return responses;
     }
 
     @Override
@@ -205,9 +584,8 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalArgumentException("Đơn hàng này không phải đơn thuê");
         }
         
-        order.setActualReturnDate(LocalDateTime.now());
-        order.setStatus(com.mimi.domain.enums.OrderStatus.RETURNED);
-        orderRepository.save(order);
+        // Ghi ngày trả, trả đồ thuê về kho và gỡ lịch thuê qua cùng đường đổi trạng thái
+        requireUpdated(changeStatuses(List.of(orderId), OrderStatus.RETURNED, false).get(0));
     }
 
     @Override
@@ -238,7 +616,14 @@ public class OrderServiceImpl implements OrderService {
         // Chỉ admin mới có thể xóa đơn hàng
         // Có thể thêm kiểm tra role ở đây hoặc ở controller layer
 
+        // Đơn còn giữ hàng (chưa hủy/trả/hoàn thành) thì trả số lượng đã giữ về kho trước khi xóa dòng hàng
+        if (RentalAvailabilityIndex.ACTIVE_STATUSES.contains(order.getStatus())) {
+            restock(List.of(orderId), null);
+        }
+        sellerRevenueRollup.orderDeleted(orderId, order.getStatus());
         orderRepository.delete(order);
+        orderOutbox.orderDeleted(orderId, order.getStatus());
+        rentalAvailabilityIndex.release(orderId);
     }
 
 }
@@ -0,0 +1,374 @@
+package com.mimi.service.impl;
+
+import com.mimi.domain.Category;
+import com.mimi.domain.Product;
+import com.mimi.domain.ProductImage;
+import com.mimi.domain.User;
+import com.mimi.domain.enums.RentUnit;
+import com.mimi.domain.enums.TradeType;
+import com.mimi.dto.request.ProductImportRow;
+import com.mimi.dto.response.ProductImportResponse;
+import com.mimi.repository.CategoryRepository;
+import com.mimi.repository.UserRepository;
+import com.mimi.search.ProductFacetIndex;
+import com.mimi.search.ProductSearchIndex;
+import com.mimi.service.ProductImportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Import sản phẩm hàng loạt từ CSV hoặc NDJSON.
+ * File được đọc từng dòng (bộ nhớ không phụ thuộc kích thước file) và ghi theo từng khối CHUNK_SIZE dòng:
+ * mỗi khối tra seller/category một lần rồi persist trong một transaction, Hibernate gom INSERT thành JDBC batch
+ * (Product/ProductImage dùng pooled table generator nên batching không bị IDENTITY vô hiệu hóa).
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String CSV_IMAGE_SEPARATOR = "\\|";
+
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record ParsedRow(long line, ProductImportRow row) {
+    }
+
+    @Override
+    public ProductImportResponse importProducts(InputStream input, Format format) throws IOException {
+        ProductImportResponse report = new ProductImportResponse();
+        List<ParsedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                long recordLine = lineNumber;
+                boolean unterminated = false;
+                if (format == Format.CSV && hasOddQuotes(line)) {
+                    // Trường trong dấu nháy có thể chứa xuống dòng: nối các dòng vật lý đến khi đóng nháy
+                    StringBuilder record = new StringBuilder(line);
+                    unterminated = true;
+                    String next;
+                    while (unterminated && (next = reader.readLine()) != null) {
+                        lineNumber++;
+                        record.append('\n').append(next);
+                        unterminated = !hasOddQuotes(next);
+                    }
+                    line = record.toString();
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvHeader(line);
+                    continue;
+                }
+
+                report.setTotalRows(report.getTotalRows() + 1);
+                try {
+                    if (unterminated) {
+                        throw new IllegalArgumentException("thiếu dấu nháy kép đóng trường");
+                    }
+                    ProductImportRow row = format == Format.CSV
+                            ? parseCsvRow(header, parseCsvLine(line))
+                            : objectMapper.readValue(line, ProductImportRow.class);
+                    chunk.add(new ParsedRow(recordLine, row));
+                } catch (RuntimeException e) {
+                    reject(report, recordLine, "Không đọc được dòng: " + e.getMessage());
+                }
+
+                if (chunk.size() >= CHUNK_SIZE) {
+                    importChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+        return report;
+    }
+
+    private void importChunk(List<ParsedRow> chunk, ProductImportResponse report) {
+        Set<Long> sellerIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (ParsedRow parsed : chunk) {
+            if (parsed.row().getSellerId() != null) {
+                sellerIds.add(parsed.row().getSellerId());
+            }
+            if (parsed.row().getCategoryId() != null) {
+                categoryIds.add(parsed.row().getCategoryId());
+            }
+        }
+        Set<Long> existingSellers = userRepository.findAllById(sellerIds).stream()
+                .map(User::getId).collect(Collectors.toSet());
+        Set<Long> existingCategories = categoryRepository.findAllById(categoryIds).stream()
+                .map(Category::getId).collect(Collectors.toSet());
+
+        List<ParsedRow> valid = new ArrayList<>(chunk.size());
+        for (ParsedRow parsed : chunk) {
+            String error = validate(parsed.row(), existingSellers, existingCategories);
+            if (error != null) {
+                reject(report, parsed.line(), error);
+            } else {
+                valid.add(parsed);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<Product> persisted;
+        try {
+            persisted = new TransactionTemplate(transactionManager).execute(status -> persistChunk(valid));
+        } catch (RuntimeException e) {
+            for (ParsedRow parsed : valid) {
+                reject(report, parsed.line(), "Lỗi lưu dữ liệu: " + e.getMessage());
+            }
+            return;
+        }
+
+        report.setImported(report.getImported() + persisted.size());
+        for (Product product : persisted) {
+            productSearchIndex.index(product);
+            productFacetIndex.index(product);
+        }
+    }
+
+    private List<Product> persistChunk(List<ParsedRow> rows) {
+        List<Product> products = new ArrayList<>(rows.size());
+        for (ParsedRow parsed : rows) {
+            ProductImportRow row = parsed.row();
+            Product product = new Product();
+            product.setSeller(entityManager.getReference(User.class, row.getSellerId()));
+            product.setCategory(entityManager.getReference(Category.class, row.getCategoryId()));
+            product.setName(row.getName().trim());
+            product.setDescription(row.getDescription());
+            product.setSpecifications(row.getSpecifications());
+            product.setConditionPercentage(row.getConditionPercentage());
+            product.setTradeType(row.getTradeType());
+            product.setBuyPrice(row.getBuyPrice());
+            product.setRentPrice(row.getRentPrice());
+            product.setDeposit(row.getDeposit());
+            product.setRentUnit(row.getRentUnit());
+            product.setAddressContact(row.getAddressContact());
+            product.setIsNew(Boolean.TRUE.equals(row.getIsNew()));
+            product.setFeatured(Boolean.TRUE.equals(row.getFeatured()));
+            entityManager.persist(product);
+
+            if (row.getImages() != null) {
+                boolean thumbnail = true;
+                for (String name : row.getImages()) {
+                    if (!isValidFilename(name)) {
+                        continue;
+                    }
+                    ProductImage image = new ProductImage();
+                    image.setProduct(product);
+                    image.setImageUrl(name.trim());
+                    image.setIsThumbnail(thumbnail);
+                    entityManager.persist(image);
+                    thumbnail = false;
+                }
+            }
+            products.add(product);
+        }
+        // Đẩy batch xuống DB rồi tách khỏi persistence context để bộ nhớ không tăng theo số khối
+        entityManager.flush();
+        entityManager.clear();
+        return products;
+    }
+
+    /** Cùng quy tắc với ProductController.createProduct, cộng thêm kiểm tra seller/category. */
+    private String validate(ProductImportRow row, Set<Long> existingSellers, Set<Long> existingCategories) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "Tên sản phẩm không được để trống";
+        }
+        if (row.getDescription() == null || row.getDescription().isBlank()) {
+            return "Mô tả sản phẩm không được để trống";
+        }
+        if (row.getAddressContact() == null || row.getAddressContact().isBlank()) {
+            return "Địa chỉ không được để trống";
+        }
+        if (row.getTradeType() == null) {
+            return "Thiếu loại giao dịch (tradeType)";
+        }
+        boolean hasBuyPrice = row.getBuyPrice() != null && row.getBuyPrice().compareTo(BigDecimal.ZERO) > 0;
+        boolean hasRentPrice = row.getRentPrice() != null && row.getRentPrice().compareTo(BigDecimal.ZERO) > 0;
+        switch (row.getTradeType()) {
+            case BUY_ONLY:
+                if (!hasBuyPrice) {
+                    return "Giá bán phải lớn hơn 0";
+                }
+                break;
+            case RENT_ONLY:
+                if (!hasRentPrice) {
+                    return "Giá thuê phải lớn hơn 0";
+                }
+                break;
+            case BOTH:
+                if (!hasBuyPrice && !hasRentPrice) {
+                    return "Cần có ít nhất một giá (bán hoặc thuê) lớn hơn 0";
+                }
+                break;
+        }
+        if (row.getConditionPercentage() != null
+                && (row.getConditionPercentage() < 0 || row.getConditionPercentage() > 100)) {
+            return "Độ mới phải nằm trong khoảng 0-100";
+        }
+        if (row.getSellerId() == null || !existingSellers.contains(row.getSellerId())) {
+            return "Thông tin người bán không tồn tại trong hệ thống";
+        }
+        if (row.getCategoryId() == null || !existingCategories.contains(row.getCategoryId())) {
+            return "Danh mục sản phẩm không tồn tại trong hệ thống";
+        }
+        return null;
+    }
+
+    private void reject(ProductImportResponse report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ProductImportResponse.RowError(line, message));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    /* ================== CSV ================== */
+
+    private Map<String, Integer> parseCsvHeader(String line) {
+        List<String> columns = parseCsvLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return header;
+    }
+
+    private ProductImportRow parseCsvRow(Map<String, Integer> header, List<String> values) {
+        ProductImportRow row = new ProductImportRow();
+        row.setName(csvValue(header, values, "name"));
+        row.setDescription(csvValue(header, values, "description"));
+        row.setSpecifications(csvValue(header, values, "specifications"));
+        String tradeType = csvValue(header, values, "tradeType");
+        row.setTradeType(tradeType == null ? null : TradeType.valueOf(tradeType.toUpperCase(Locale.ROOT)));
+        row.setBuyPrice(decimal(csvValue(header, values, "buyPrice")));
+        row.setRentPrice(decimal(csvValue(header, values, "rentPrice")));
+        row.setDeposit(decimal(csvValue(header, values, "deposit")));
+        String rentUnit = csvValue(header, values, "rentUnit");
+        row.setRentUnit(rentUnit == null ? null : RentUnit.valueOf(rentUnit.toUpperCase(Locale.ROOT)));
+        String condition = csvValue(header, values, "conditionPercentage");
+        row.setConditionPercentage(condition == null ? null : Integer.valueOf(condition));
+        row.setAddressContact(csvValue(header, values, "addressContact"));
+        String sellerId = csvValue(header, values, "sellerId");
+        row.setSellerId(sellerId == null ? null : Long.valueOf(sellerId));
+        String categoryId = csvValue(header, values, "categoryId");
+        row.setCategoryId(categoryId == null ? null : Long.valueOf(categoryId));
+        row.setIsNew(Boolean.valueOf(csvValue(header, values, "isNew")));
+        row.setFeatured(Boolean.valueOf(csvValue(header, values, "featured")));
+        String images = csvValue(header, values, "images");
+        row.setImages(images == null ? null : Arrays.asList(images.split(CSV_IMAGE_SEPARATOR)));
+        return row;
+    }
+
+    private String csvValue(Map<String, Integer> header, List<String> values, String column) {
+        Integer index = header.get(column.toLowerCase(Locale.ROOT));
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private BigDecimal decimal(String value) {
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    /**
+     * Số dấu nháy kép trong đoạn là lẻ, tức là trạng thái trong/ngoài nháy bị đảo sau đoạn này
+     * ("" thoát luôn đi theo cặp nên không làm đổi tính chẵn lẻ).
+     */
+    private boolean hasOddQuotes(String text) {
+        int quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 == 1;
+    }
+
+    /**
+     * Tách một bản ghi CSV (RFC 4180: trường trong dấu nháy kép, "" là dấu nháy thoát).
+     * Bản ghi có thể gồm nhiều dòng vật lý đã được nối bằng \n khi trường trong nháy chứa xuống dòng.
+     */
+    private List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private boolean isValidFilename(String filename) {
+        return filename != null
+                && !filename.isBlank()
+                && !filename.contains("..")
+                && !filename.contains("/");
+    }
+}
@@ -1,28 +1,95 @@
 package com.mimi.service.impl;
 
+import com.mimi.cache.ProductDetailCache;
 import com.mimi.domain.Category;
 import com.mimi.domain.Product;
 import com.mimi.domain.User;
+import com.mimi.domain.enums.ProductStatus;
+import com.mimi.domain.enums.TradeType;
+import com.mimi.dto.response.CursorPageResponse;
+import com.mimi.dto.response.FacetedProductResponse;
+import com.mimi.dto.response.SellerProductCounts;
 import com.mimi.repository.CategoryRepository;
 import com.mimi.repository.ProductRepository;
 import com.mimi.repository.UserRepository;
+import com.mimi.search.ProductFacetFilter;
+import com.mimi.search.ProductFacetIndex;
+import com.mimi.search.ProductSearchIndex;
+import com.mimi.service.CreatedAtCursor;
+import com.mimi.service.ProductResponseAssembler;
 import com.mimi.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductResponseAssembler productResponseAssembler;
+    private final ProductDetailCache productDetailCache;
 
     @Override
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return productRepository.findAllWithSellerAndCategory();
+    }
+
+    @Override
+    public CursorPageResponse<Product> getProductPage(String cursor, Integer size, Long categoryId,
+                                                      TradeType tradeType, ProductStatus status) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Lấy dư 1 dòng để biết còn trang sau hay không mà không cần COUNT
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Product> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = productRepository.findCatalogFirstPage(categoryId, tradeType, status, limit);
+        } else {
+            CreatedAtCursor after = CreatedAtCursor.decode(cursor);
+            rows = productRepository.findCatalogPageAfter(categoryId, tradeType, status,
+                    after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            // created_at NOT NULL nên dòng cuối luôn cho ra cursor hợp lệ
+            Product last = items.get(items.size() - 1);
+            nextCursor = new CreatedAtCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageResponse<>(items, nextCursor, hasMore);
+    }
+
+    @Override
+    public List<Product> searchProducts(String query, Integer limit) {
+        int max = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return loadInOrder(productSearchIndex.search(query, max));
+    }
+
+    @Override
+    public FacetedProductResponse filterProducts(ProductFacetFilter filter, Integer page, Integer size) {
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProductFacetIndex.Result result = productFacetIndex.query(filter, pageNumber * pageSize, pageSize);
+        List<Product> products = loadInOrder(result.productIds());
+        return new FacetedProductResponse(productResponseAssembler.toResponses(products),
+                result.total(), pageNumber, pageSize, result.facets());
     }
 
     @Override
@@ -30,6 +97,49 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findBySellerId(userId);
     }
 
+    @Override
+    public List<Product> getSellerProductPage(Long sellerId, Integer page, Integer size, String sort) {
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return productRepository.findBySellerId(sellerId,
+                PageRequest.of(pageNumber, pageSize, storefrontSort(sort)));
+    }
+
+    @Override
+    public SellerProductCounts countSellerProducts(Long sellerId) {
+        SellerProductCounts counts = new SellerProductCounts();
+        for (Object[] row : productRepository.countBySellerGroupByStatus(sellerId)) {
+            ProductStatus status = (ProductStatus) row[0];
+            long count = ((Number) row[1]).longValue();
+            counts.setTotal(counts.getTotal() + count);
+            if (status == ProductStatus.ACTIVE) {
+                counts.setActive(count);
+            } else if (status == ProductStatus.HIDDEN) {
+                counts.setHidden(count);
+            } else if (status == ProductStatus.SOLD_OUT) {
+                counts.setSoldOut(count);
+            }
+        }
+        return counts;
+    }
+
+    /** newest (mặc định), price_asc, price_desc, featured; id luôn là khóa phụ để thứ tự ổn định giữa các trang. */
+    private Sort storefrontSort(String sort) {
+        if (sort == null || sort.isBlank() || "newest".equalsIgnoreCase(sort)) {
+            return Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+        }
+        switch (sort.toLowerCase()) {
+            case "price_asc":
+                return Sort.by(Sort.Order.asc("buyPrice"), Sort.Order.asc("rentPrice"), Sort.Order.asc("id"));
+            case "price_desc":
+                return Sort.by(Sort.Order.desc("buyPrice"), Sort.Order.desc("rentPrice"), Sort.Order.desc("id"));
+            case "featured":
+                return Sort.by(Sort.Order.desc("featured"), Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+            default:
+                throw new IllegalArgumentException("Kiểu sắp xếp không hợp lệ: " + sort);
+        }
+    }
+
     @Override
     public Product saveProduct(Product product) {
         // Nếu request gửi seller.id thì dùng user đó làm người bán; nếu không mới dùng user đầu tiên (mặc định)
@@ -50,7 +160,10 @@ public class ProductServiceImpl implements ProductService {
             product.setCategory(defaultCategory);
         }
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productSearchIndex.index(saved);
+        productFacetIndex.index(saved);
+        return saved;
     }
 
     @Override
@@ -66,17 +179,38 @@ public class ProductServiceImpl implements ProductService {
         existingProduct.setStatus(product.getStatus());
         existingProduct.setTradeType(product.getTradeType());
         
-        return productRepository.save(existingProduct);
+        Product saved = productRepository.save(existingProduct);
+        productDetailCache.invalidate(id);
+        productSearchIndex.index(saved);
+        productFacetIndex.index(saved);
+        return saved;
     }
 
     @Override
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        productDetailCache.invalidate(id);
+        productSearchIndex.remove(id);
+        productFacetIndex.remove(id);
     }
 
     @Override
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
+        return productRepository.findWithSellerAndCategoryById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
     }
-}
\ No newline at end of file
+
+    /** Nạp sản phẩm theo danh sách id từ index, giữ nguyên thứ tự của index (findByIdIn không giữ thứ tự). */
+    private List<Product> loadInOrder(List<Long> orderedIds) {
+        if (orderedIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> position = new HashMap<>();
+        for (int i = 0; i < orderedIds.size(); i++) {
+            position.put(orderedIds.get(i), i);
+        }
+        List<Product> products = new ArrayList<>(productRepository.findByIdIn(orderedIds));
+        products.sort(Comparator.comparing(p -> position.get(p.getId())));
+        return products;
+    }
+}
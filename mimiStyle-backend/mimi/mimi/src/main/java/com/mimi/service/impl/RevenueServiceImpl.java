@@ -1,170 +1,206 @@
 package com.mimi.service.impl;
 
 import com.mimi.domain.OrderItem;
-import com.mimi.domain.ProductImage;
 import com.mimi.dto.response.DailyRevenueResponse;
 import com.mimi.dto.response.RevenueResponse;
 import com.mimi.dto.response.SoldProductResponse;
+import com.mimi.export.ExportFormat;
+import com.mimi.export.SheetWriter;
+import com.mimi.repository.CategoryRepository;
 import com.mimi.repository.OrderItemRepository;
 import com.mimi.repository.ProductImageRepository;
+import com.mimi.repository.SellerDailyRevenueRepository;
+import com.mimi.repository.projection.SoldItemExportRow;
 import com.mimi.service.RevenueService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.WeekFields;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class RevenueServiceImpl implements RevenueService {
 
+    /** Giới hạn số phần tử trong một mệnh đề IN. */
+    private static final int IN_CLAUSE_CHUNK = 500;
+
+    private static final List<String> EXPORT_HEADER = List.of(
+        "Mã đơn", "Ngày đặt", "Trạng thái", "Mã sản phẩm", "Tên sản phẩm", "Danh mục",
+        "Số lượng", "Đơn giá", "Thành tiền", "Người nhận", "Số điện thoại", "Địa chỉ");
+
     private final OrderItemRepository orderItemRepository;
+    private final CategoryRepository categoryRepository;
     private final ProductImageRepository productImageRepository;
+    private final SellerDailyRevenueRepository sellerDailyRevenueRepository;
 
+    /** Đọc từ rollup seller_daily_revenue: dòng tổng (category 0), hoặc các dòng của những danh mục được lọc. */
     @Override
     @Transactional(readOnly = true)
-    public RevenueResponse getRevenueSummary(Long userId, LocalDate startDate, LocalDate endDate, String category) {
-        List<OrderItem> soldItems = getSoldItemsForSeller(userId, startDate, endDate, category);
-        BigDecimal totalRevenue = soldItems.stream()
-            .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        Integer totalProductsSold = soldItems.stream()
-            .mapToInt(OrderItem::getQuantity)
-            .sum();
+    public RevenueResponse getRevenueSummary(Long userId, LocalDate startDate, LocalDate endDate, String category,
+                                             Long categoryId, boolean includeSubcategories) {
         String period = formatPeriod(startDate, endDate);
+        Set<Long> categoryIds = resolveCategoryIds(categoryId, category, includeSubcategories);
+        if (categoryIds != null && categoryIds.isEmpty()) {
+            return new RevenueResponse(BigDecimal.ZERO, 0, period);
+        }
+        List<Object[]> rows = categoryIds != null
+            ? sellerDailyRevenueRepository.sumByCategories(userId, categoryIds, startDate, endDate)
+            : sellerDailyRevenueRepository.sumTotals(userId, startDate, endDate);
+        Object[] row = rows.get(0);
+        BigDecimal totalRevenue = row[0] instanceof BigDecimal revenue ? revenue : new BigDecimal(row[0].toString());
+        Integer totalProductsSold = ((Number) row[1]).intValue();
         return new RevenueResponse(totalRevenue, totalProductsSold, period);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<SoldProductResponse> getSoldProducts(Long userId, LocalDate startDate, LocalDate endDate, String category) {
-        List<OrderItem> soldItems = getSoldItemsForSeller(userId, startDate, endDate, category);
+    public List<SoldProductResponse> getSoldProducts(Long userId, LocalDate startDate, LocalDate endDate, String category,
+                                                     Long categoryId, boolean includeSubcategories) {
+        List<OrderItem> soldItems = getSoldItemsForSeller(userId, startDate, endDate,
+            resolveCategoryIds(categoryId, category, includeSubcategories));
+        Map<Long, String> thumbnails = loadThumbnails(soldItems.stream()
+            .map(item -> item.getProduct().getId())
+            .collect(Collectors.toSet()));
         return soldItems.stream()
-            .map(this::mapToSoldProductResponse)
+            .map(item -> mapToSoldProductResponse(item, thumbnails))
             .collect(Collectors.toList());
     }
 
+    /**
+     * Ghi dòng hàng đã bán ra CSV/XLSX trong lúc đọc từ DB: truy vấn projection dạng stream với fetch size cố định,
+     * mỗi dòng được ghi ngay nên bộ nhớ không tăng theo số dòng. Không kèm ảnh sản phẩm.
+     */
     @Override
     @Transactional(readOnly = true)
-    public List<DailyRevenueResponse> getDailyRevenue(Long userId, LocalDate startDate, LocalDate endDate) {
-        List<OrderItem> soldItems = getSoldItemsForSeller(userId, startDate, endDate, null);
-        
-        Map<LocalDate, DailyRevenueResponse> dailyMap = new LinkedHashMap<>();
-        
-        for (OrderItem item : soldItems) {
-            LocalDate date = item.getOrder().getCreatedAt().toLocalDate();
-            DailyRevenueResponse daily = dailyMap.getOrDefault(date, 
-                new DailyRevenueResponse(date, BigDecimal.ZERO, 0, 0));
-            
-            BigDecimal itemRevenue = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-            daily.setRevenue(daily.getRevenue().add(itemRevenue));
-            daily.setProductCount(daily.getProductCount() + item.getQuantity());
-            
-            dailyMap.put(date, daily);
-        }
-        
-        // Count unique orders per day
-        Map<LocalDate, Set<Long>> ordersPerDay = new HashMap<>();
-        for (OrderItem item : soldItems) {
-            LocalDate date = item.getOrder().getCreatedAt().toLocalDate();
-            ordersPerDay.computeIfAbsent(date, k -> new HashSet<>()).add(item.getOrder().getId());
-        }
-        
-        for (Map.Entry<LocalDate, Set<Long>> entry : ordersPerDay.entrySet()) {
-            DailyRevenueResponse daily = dailyMap.get(entry.getKey());
-            if (daily != null) {
-                daily.setOrderCount(entry.getValue().size());
+    public void exportSoldItems(Long userId, LocalDate startDate, LocalDate endDate, String category, Long categoryId,
+                                boolean includeSubcategories, ExportFormat format, OutputStream out) throws IOException {
+        Set<Long> categoryIds = resolveCategoryIds(categoryId, category, includeSubcategories);
+        SheetWriter writer = format.open(out, "Doanh thu");
+        writer.writeRow(EXPORT_HEADER);
+        if (categoryIds == null || !categoryIds.isEmpty()) {
+            LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : null;
+            LocalDateTime endDateTime = endDate != null ? endDate.atTime(23, 59, 59) : null;
+            try (Stream<SoldItemExportRow> rows = orderItemRepository.streamSoldItemsForExport(userId,
+                    categoryIds != null, categoryIds != null ? categoryIds : List.of(0L), startDateTime, endDateTime)) {
+                Iterator<SoldItemExportRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    SoldItemExportRow row = iterator.next();
+                    writer.writeRow(Arrays.asList(
+                        row.orderId(),
+                        row.createdAt(),
+                        row.status(),
+                        row.productId(),
+                        row.productName(),
+                        row.categoryName(),
+                        row.quantity(),
+                        row.price(),
+                        row.price().multiply(BigDecimal.valueOf(row.quantity())),
+                        row.shippingName(),
+                        row.shippingPhone(),
+                        row.shippingAddress()));
+                }
             }
         }
-        
-        return dailyMap.values().stream()
-            .sorted(Comparator.comparing(DailyRevenueResponse::getDate))
-            .collect(Collectors.toList());
+        writer.finish();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyRevenueResponse> getDailyRevenue(Long userId, LocalDate startDate, LocalDate endDate) {
+        return sellerDailyRevenueRepository.findDaily(userId, startDate, endDate);
     }
 
+    /** Tuần theo ISO-8601 (bắt đầu thứ Hai), date là thứ Hai đầu tuần; cộng dồn trong MySQL. */
     @Override
     @Transactional(readOnly = true)
     public List<DailyRevenueResponse> getWeeklyRevenue(Long userId, LocalDate startDate, LocalDate endDate) {
-        List<OrderItem> soldItems = getSoldItemsForSeller(userId, startDate, endDate, null);
-        
-        WeekFields weekFields = WeekFields.of(Locale.getDefault());
-        Map<String, DailyRevenueResponse> weeklyMap = new LinkedHashMap<>();
-        
-        for (OrderItem item : soldItems) {
-            LocalDate date = item.getOrder().getCreatedAt().toLocalDate();
-            int year = date.getYear();
-            int week = date.get(weekFields.weekOfWeekBasedYear());
-            String weekKey = year + "-W" + String.format("%02d", week);
-            
-            // Use Monday of the week as the date
-            LocalDate weekStart = date.with(weekFields.dayOfWeek(), 1);
-            
-            DailyRevenueResponse weekly = weeklyMap.getOrDefault(weekKey, 
-                new DailyRevenueResponse(weekStart, BigDecimal.ZERO, 0, 0));
-            
-            BigDecimal itemRevenue = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-            weekly.setRevenue(weekly.getRevenue().add(itemRevenue));
-            weekly.setProductCount(weekly.getProductCount() + item.getQuantity());
-            
-            weeklyMap.put(weekKey, weekly);
+        List<DailyRevenueResponse> weekly = new ArrayList<>();
+        for (Object[] row : sellerDailyRevenueRepository.sumWeekly(userId, startDate, endDate)) {
+            LocalDate weekStart = row[0] instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) row[0];
+            BigDecimal revenue = row[1] instanceof BigDecimal value ? value : new BigDecimal(row[1].toString());
+            weekly.add(new DailyRevenueResponse(weekStart, revenue,
+                ((Number) row[2]).intValue(), ((Number) row[3]).intValue()));
         }
-        
-        // Count unique orders per week
-        Map<String, Set<Long>> ordersPerWeek = new HashMap<>();
-        for (OrderItem item : soldItems) {
-            LocalDate date = item.getOrder().getCreatedAt().toLocalDate();
-            int year = date.getYear();
-            int week = date.get(weekFields.weekOfWeekBasedYear());
-            String weekKey = year + "-W" + String.format("%02d", week);
-            ordersPerWeek.computeIfAbsent(weekKey, k -> new HashSet<>()).add(item.getOrder().getId());
+        return weekly;
+    }
+
+    /**
+     * Order items đã bán của seller, product và category được fetch cùng truy vấn.
+     * categoryIds null = mọi danh mục; lọc danh mục nằm trong câu truy vấn chứ không lọc sau khi nạp.
+     */
+    private List<OrderItem> getSoldItemsForSeller(Long userId, LocalDate startDate, LocalDate endDate,
+                                                  Set<Long> categoryIds) {
+        LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : null;
+        LocalDateTime endDateTime = endDate != null ? endDate.atTime(23, 59, 59) : null;
+        if (categoryIds == null) {
+            return orderItemRepository.findSoldItemsBySeller(userId, startDateTime, endDateTime);
         }
-        
-        for (Map.Entry<String, Set<Long>> entry : ordersPerWeek.entrySet()) {
-            DailyRevenueResponse weekly = weeklyMap.get(entry.getKey());
-            if (weekly != null) {
-                weekly.setOrderCount(entry.getValue().size());
-            }
+        if (categoryIds.isEmpty()) {
+            return List.of();
         }
-        
-        return weeklyMap.values().stream()
-            .sorted(Comparator.comparing(DailyRevenueResponse::getDate))
-            .collect(Collectors.toList());
+        return orderItemRepository.findSoldItemsBySellerInCategories(userId, categoryIds, startDateTime, endDateTime);
     }
 
-    /** Lấy order items của seller: không lọc ngày khi startDate/endDate đều null (lấy tất cả đơn đã bán). */
-    private List<OrderItem> getSoldItemsForSeller(Long userId, LocalDate startDate, LocalDate endDate, String category) {
-        List<OrderItem> soldItems;
-        if (startDate == null && endDate == null) {
-            soldItems = orderItemRepository.findAllSoldItemsBySeller(userId);
-        } else {
-            LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : null;
-            LocalDateTime endDateTime = endDate != null ? endDate.atTime(23, 59, 59) : null;
-            soldItems = orderItemRepository.findSoldItemsBySeller(userId, startDateTime, endDateTime);
+    /**
+     * Id các danh mục cần lọc: theo categoryId nếu có, không thì theo tên (không phân biệt hoa thường);
+     * includeSubcategories thì thêm toàn bộ cây con theo parentId.
+     * null = không lọc, rỗng = không có danh mục nào khớp.
+     */
+    private Set<Long> resolveCategoryIds(Long categoryId, String category, boolean includeSubcategories) {
+        boolean byName = category != null && !category.isEmpty();
+        if (categoryId == null && !byName) {
+            return null;
+        }
+        Set<Long> matched = new LinkedHashSet<>();
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (Object[] row : categoryRepository.findTreeRows()) {
+            Long id = (Long) row[0];
+            Long parentId = (Long) row[1];
+            String name = (String) row[2];
+            if (parentId != null) {
+                children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(id);
+            }
+            if (categoryId != null ? categoryId.equals(id) : category.equalsIgnoreCase(name)) {
+                matched.add(id);
+            }
         }
-        if (category != null && !category.isEmpty()) {
-            soldItems = soldItems.stream()
-                .filter(item -> item.getProduct() != null && item.getProduct().getCategory() != null
-                    && category.equalsIgnoreCase(item.getProduct().getCategory().getName()))
-                .collect(Collectors.toList());
+        if (includeSubcategories) {
+            Deque<Long> queue = new ArrayDeque<>(matched);
+            while (!queue.isEmpty()) {
+                for (Long child : children.getOrDefault(queue.poll(), List.of())) {
+                    if (matched.add(child)) {
+                        queue.add(child);
+                    }
+                }
+            }
         }
-        return soldItems;
+        return matched;
     }
-    
-    private SoldProductResponse mapToSoldProductResponse(OrderItem orderItem) {
-        String imageUrl = null;
-        if (orderItem.getProduct() != null) {
-            List<ProductImage> imgs = productImageRepository.findByProductId(orderItem.getProduct().getId());
-            if (imgs != null && !imgs.isEmpty()) {
-                imageUrl = imgs.get(0).getImageUrl();
+
+    /** Ảnh đại diện của các sản phẩm, một truy vấn cho mỗi 500 sản phẩm thay vì một truy vấn mỗi dòng. */
+    private Map<Long, String> loadThumbnails(Collection<Long> productIds) {
+        Map<Long, String> thumbnails = new HashMap<>();
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = ids.subList(i, Math.min(i + IN_CLAUSE_CHUNK, ids.size()));
+            for (Object[] row : productImageRepository.findThumbnailUrlsByProductIds(chunk)) {
+                thumbnails.put((Long) row[0], (String) row[1]);
             }
         }
-        if (imageUrl == null) imageUrl = "";
-            
+        return thumbnails;
+    }
+
+    private SoldProductResponse mapToSoldProductResponse(OrderItem orderItem, Map<Long, String> thumbnails) {
+        String imageUrl = thumbnails.getOrDefault(orderItem.getProduct().getId(), "");
+
         String categoryName = orderItem.getProduct().getCategory() != null 
             ? orderItem.getProduct().getCategory().getName()
             : "Khác";
@@ -0,0 +1,139 @@
+package com.mimi.storage;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Lưu file upload theo SHA-256 của nội dung: {@code <sha256>.<ext>}.
+ * Nội dung được stream ra file tạm và băm trong cùng một lượt đọc; nếu đã có file cùng hash
+ * thì bỏ bản vừa ghi, nên các lần upload lại cùng một ảnh chỉ chiếm một file trên đĩa (và một entry cache).
+ * <p>
+ * Vì một file có thể dùng chung, file chỉ được xóa qua {@link #deleteIfUnreferenced}: hash vừa được store
+ * (client chưa kịp lưu product_images) được giữ thêm một khoảng ân hạn, và kiểm tra + xóa chạy dưới cùng khóa
+ * với store của cùng tên file.
+ */
+@Component
+public class ContentAddressedStorage {
+
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("\\.[a-z0-9]{1,5}");
+    /** Thời gian từ lúc upload đến khi client lưu sản phẩm kèm tên file. */
+    private static final Duration REFERENCE_GRACE = Duration.ofMinutes(15);
+    private static final int LOCK_STRIPES = 64;
+    /** Quá ngưỡng này thì dọn các hash đã hết ân hạn khỏi recentlyStored. */
+    private static final int MAX_TRACKED = 10_000;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    /** filename → lần store gần nhất (ms) */
+    private final Map<String, Long> recentlyStored = new ConcurrentHashMap<>();
+
+    public ContentAddressedStorage() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /** created = false nghĩa là nội dung đã tồn tại từ trước. */
+    public record StoredFile(String filename, boolean created) {
+    }
+
+    public StoredFile store(MultipartFile file, Path directory) throws IOException {
+        Path temp = Files.createTempFile(directory, "upload_", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String filename = HexFormat.of().formatHex(digest.digest()) + extensionOf(file.getOriginalFilename());
+            Path target = directory.resolve(filename);
+            long now = System.currentTimeMillis();
+            if (recentlyStored.size() >= MAX_TRACKED) {
+                recentlyStored.values().removeIf(storedAt -> now - storedAt >= REFERENCE_GRACE.toMillis());
+            }
+            synchronized (lockFor(filename)) {
+                recentlyStored.put(filename, now);
+                if (Files.exists(target)) {
+                    return new StoredFile(filename, false);
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    return new StoredFile(filename, true);
+                } catch (FileAlreadyExistsException e) {
+                    // Một upload song song cùng nội dung đã ghi xong trước
+                    return new StoredFile(filename, false);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Xóa file (và các file phụ do onDelete dọn) nếu không còn được tham chiếu và không vừa được store lại
+     * trong khoảng ân hạn. Trả về true nếu đã xóa.
+     */
+    public boolean deleteIfUnreferenced(Path file, BooleanSupplier referenced, FileAction onDelete) throws IOException {
+        String filename = file.getFileName().toString();
+        synchronized (lockFor(filename)) {
+            Long storedAt = recentlyStored.get(filename);
+            if (storedAt != null) {
+                if (System.currentTimeMillis() - storedAt < REFERENCE_GRACE.toMillis()) {
+                    return false;
+                }
+                recentlyStored.remove(filename, storedAt);
+            }
+            if (referenced.getAsBoolean()) {
+                return false;
+            }
+            onDelete.run(file);
+            Files.deleteIfExists(file);
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    public interface FileAction {
+        void run(Path file) throws IOException;
+    }
+
+    private Object lockFor(String filename) {
+        return locks[Math.floorMod(filename.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static String extensionOf(String originalFilename) {
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            return ".jpg";
+        }
+        String ext = originalFilename.substring(originalFilename.lastIndexOf('.')).toLowerCase(Locale.ROOT);
+        if (".jpeg".equals(ext)) {
+            // Cùng nội dung JPEG phải ra cùng tên dù client đặt đuôi .jpg hay .jpeg
+            return ".jpg";
+        }
+        return SAFE_EXTENSION.matcher(ext).matches() ? ext : ".jpg";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.mimi.storage;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Đọc tag Orientation (0x0112) trong EXIF của JPEG và xoay/lật ảnh về hướng hiển thị.
+ * Ảnh chụp bằng điện thoại thường lưu pixel theo hướng cảm biến và chỉ ghi hướng vào EXIF;
+ * ImageIO bỏ qua tag này nên nếu không xoay thì bản thu nhỏ bị nằm ngang.
+ */
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+
+    private ExifOrientation() {
+    }
+
+    /** Giá trị Orientation 1..8; 1 nếu không có EXIF hoặc không đọc được. */
+    static int read(Path jpeg) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(jpeg)))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return NORMAL;
+            }
+            while (true) {
+                int prefix = in.readUnsignedByte();
+                if (prefix != 0xFF) {
+                    return NORMAL;
+                }
+                int marker = in.readUnsignedByte();
+                if (marker == 0xFF) {
+                    // Byte đệm giữa các segment
+                    continue;
+                }
+                if (marker == MARKER_SOS || marker == MARKER_EOI) {
+                    return NORMAL;
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return NORMAL;
+                }
+                if (marker == MARKER_APP1) {
+                    byte[] segment = in.readNBytes(length);
+                    int orientation = parseExif(segment);
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                } else {
+                    skipFully(in, length);
+                }
+            }
+        } catch (EOFException e) {
+            return NORMAL;
+        }
+    }
+
+    /** Orientation trong segment APP1, 0 nếu segment không phải EXIF hoặc không có tag. */
+    private static int parseExif(byte[] segment) {
+        if (segment.length < 14 || !"Exif\0\0".equals(new String(segment, 0, 6, StandardCharsets.ISO_8859_1))) {
+            return 0;
+        }
+        int tiff = 6;
+        boolean littleEndian;
+        if (segment[tiff] == 'I' && segment[tiff + 1] == 'I') {
+            littleEndian = true;
+        } else if (segment[tiff] == 'M' && segment[tiff + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return 0;
+        }
+        long ifd = tiff + readInt(segment, tiff + 4, littleEndian);
+        if (ifd + 2 > segment.length) {
+            return 0;
+        }
+        int entries = readShort(segment, (int) ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > segment.length) {
+                return 0;
+            }
+            if (readShort(segment, entry, littleEndian) == TAG_ORIENTATION) {
+                int value = readShort(segment, entry + 8, littleEndian);
+                return value >= 1 && value <= 8 ? value : 0;
+            }
+        }
+        return 0;
+    }
+
+    /** Xoay/lật image theo orientation để ra đúng hướng hiển thị; orientation 1 trả lại chính image. */
+    static BufferedImage apply(BufferedImage image, int orientation) {
+        if (orientation <= NORMAL || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        BufferedImage result = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[w];
+        for (int sy = 0; sy < h; sy++) {
+            image.getRGB(0, sy, w, 1, row, 0, w);
+            for (int sx = 0; sx < w; sx++) {
+                int dx;
+                int dy;
+                switch (orientation) {
+                    case 2 -> { dx = w - 1 - sx; dy = sy; }
+                    case 3 -> { dx = w - 1 - sx; dy = h - 1 - sy; }
+                    case 4 -> { dx = sx; dy = h - 1 - sy; }
+                    case 5 -> { dx = sy; dy = sx; }
+                    case 6 -> { dx = h - 1 - sy; dy = sx; }
+                    case 7 -> { dx = h - 1 - sy; dy = w - 1 - sx; }
+                    default -> { dx = sy; dy = w - 1 - sx; }
+                }
+                result.setRGB(dx, dy, row[sx]);
+            }
+        }
+        return result;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? b0 | (b1 << 8) : (b0 << 8) | b1;
+    }
+
+    private static long readInt(byte[] data, int offset, boolean littleEndian) {
+        long high = readShort(data, offset + (littleEndian ? 2 : 0), littleEndian);
+        long low = readShort(data, offset + (littleEndian ? 0 : 2), littleEndian);
+        return (high << 16) | low;
+    }
+
+    private static void skipFully(InputStream in, int length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+}
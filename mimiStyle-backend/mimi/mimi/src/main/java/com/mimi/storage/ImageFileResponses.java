@@ -0,0 +1,44 @@
+package com.mimi.storage;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Dựng response phục vụ file ảnh từ đĩa: stream qua Resource (không đọc cả file vào heap),
+ * ETag mạnh + Last-Modified để Spring trả 304, header Range được xử lý thành 206.
+ */
+public final class ImageFileResponses {
+
+    private static final Duration IMMUTABLE_MAX_AGE = Duration.ofDays(365);
+    /** Dùng khi đang trả ảnh gốc thay cho bản thu nhỏ chưa sinh xong, để client sớm hỏi lại. */
+    private static final Duration FALLBACK_MAX_AGE = Duration.ofMinutes(1);
+
+    private ImageFileResponses() {
+    }
+
+    public static ResponseEntity<Resource> serve(Path file, boolean immutable) throws IOException {
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        MediaType type = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        CacheControl cacheControl = immutable
+                ? CacheControl.maxAge(IMMUTABLE_MAX_AGE).cachePublic().immutable()
+                : CacheControl.maxAge(FALLBACK_MAX_AGE).cachePublic();
+
+        return ResponseEntity.ok()
+                .contentType(type)
+                .eTag("\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"")
+                .lastModified(lastModified)
+                .cacheControl(cacheControl)
+                .body(new FileSystemResource(file));
+    }
+}
@@ -0,0 +1,166 @@
+package com.mimi.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sinh các bản thu nhỏ (150/400/1024 px theo cạnh dài) cho ảnh upload, chạy nền trên imageTaskExecutor.
+ * Bản thu nhỏ nằm cạnh ảnh gốc: {@code <thư mục gốc>/variants/<size>/<tên file>}.
+ * JPEG được xoay theo EXIF Orientation trước khi thu nhỏ, vì bản thu nhỏ không giữ lại EXIF.
+ * Khi bản thu nhỏ chưa có (đang xử lý, ảnh nhỏ hơn kích thước yêu cầu, định dạng không hỗ trợ)
+ * thì {@link #resolve} trả về ảnh gốc.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    public static final List<Integer> SIZES = List.of(150, 400, 1024);
+    private static final float JPEG_QUALITY = 0.8f;
+
+    @Async("imageTaskExecutor")
+    public void generateVariants(Path original) {
+        String format = outputFormat(original);
+        if (format == null) {
+            return;
+        }
+        try {
+            BufferedImage source = ImageIO.read(original.toFile());
+            if (source == null) {
+                return;
+            }
+            if ("jpeg".equals(format)) {
+                // Ảnh điện thoại: pixel theo hướng cảm biến, hướng thật nằm trong EXIF
+                source = ExifOrientation.apply(source, ExifOrientation.read(original));
+            }
+            int longestSide = Math.max(source.getWidth(), source.getHeight());
+            for (int size : SIZES) {
+                Path target = variantPath(original, size);
+                if (longestSide <= size || Files.exists(target)) {
+                    continue;
+                }
+                BufferedImage resized = resize(source, size, "png".equals(format));
+                writeAtomically(resized, format, target);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Không tạo được ảnh thu nhỏ cho {}: {}", original.getFileName(), e.getMessage());
+        }
+    }
+
+    /** Chọn bản thu nhỏ nhỏ nhất không bé hơn size yêu cầu; trả về ảnh gốc nếu bản đó chưa có. */
+    public Path resolve(Path original, Integer requestedSize) {
+        if (requestedSize == null) {
+            return original;
+        }
+        for (int size : SIZES) {
+            if (size >= requestedSize) {
+                Path variant = variantPath(original, size);
+                return Files.isRegularFile(variant) ? variant : original;
+            }
+        }
+        return original;
+    }
+
+    public void deleteVariants(Path original) {
+        for (int size : SIZES) {
+            try {
+                Files.deleteIfExists(variantPath(original, size));
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private Path variantPath(Path original, int size) {
+        return original.getParent()
+                .resolve("variants")
+                .resolve(String.valueOf(size))
+                .resolve(original.getFileName());
+    }
+
+    private String outputFormat(Path original) {
+        String name = original.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+            return "jpeg";
+        }
+        if (name.endsWith(".png")) {
+            return "png";
+        }
+        return null;
+    }
+
+    /** Thu nhỏ theo từng nửa kích thước cho tới gần đích để ảnh không bị răng cưa như khi thu một bước. */
+    private BufferedImage resize(BufferedImage source, int longestSide, boolean keepAlpha) {
+        double scale = (double) longestSide / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /** Ghi ra file tạm rồi move, để request đọc song song không bao giờ thấy file ghi dở. */
+    private void writeAtomically(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "variant_", ".tmp");
+        try {
+            if ("jpeg".equals(format)) {
+                writeJpeg(image, temp);
+            } else {
+                ImageIO.write(image, format, temp.toFile());
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("Không có JPEG writer");
+        }
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
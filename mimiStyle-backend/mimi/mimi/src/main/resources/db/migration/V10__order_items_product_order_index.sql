@@ -0,0 +1,2 @@
+-- Seller order inbox: products(seller_id) -> order_items(product_id, order_id) -> orders
+CREATE INDEX idx_order_items_product_order ON order_items (product_id, order_id);
@@ -0,0 +1,11 @@
+-- Revenue rollup per seller, day and category (category_id = 0 holds the all-category total).
+-- Filled by the application at startup when empty, then maintained on every order change.
+CREATE TABLE IF NOT EXISTS seller_daily_revenue (
+    seller_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    revenue DECIMAL(19, 2) NOT NULL,
+    qty INT NOT NULL,
+    order_count INT NOT NULL,
+    PRIMARY KEY (seller_id, day, category_id)
+);
@@ -0,0 +1,3 @@
+-- Overdue rental scan: equality on status, then range + keyset on (expected_return_date, id)
+DROP INDEX idx_orders_expected_return_date ON orders;
+CREATE INDEX idx_orders_status_expected_return_date ON orders (status, expected_return_date, id);
@@ -0,0 +1,2 @@
+-- Reference check before deleting a shared content-addressed image file
+CREATE INDEX idx_product_images_image_url ON product_images (image_url);
@@ -0,0 +1,3 @@
+-- Catalog keyset cursor needs created_at on every row; legacy NULLs sort last, as they did before
+UPDATE products SET created_at = '1970-01-01 00:00:00' WHERE created_at IS NULL;
+ALTER TABLE products MODIFY created_at DATETIME(6) NOT NULL;
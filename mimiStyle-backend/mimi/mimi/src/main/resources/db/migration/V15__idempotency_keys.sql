@@ -0,0 +1,9 @@
+-- Idempotency-Key replay store for order creation; the key itself is the unique key
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idem_key VARCHAR(100) NOT NULL PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    order_id BIGINT NOT NULL,
+    created_at DATETIME(6)
+);
+-- Expiry sweep deletes keys older than the retention window
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,14 @@
+-- Table-backed pooled id generator used by @TableGenerator(table = "id_generators")
+CREATE TABLE IF NOT EXISTS id_generators (
+    gen_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    gen_value BIGINT
+);
+
+-- Start above existing AUTO_INCREMENT ids (allocationSize = 50)
+INSERT INTO id_generators (gen_name, gen_value)
+SELECT 'products', COALESCE(MAX(id), 0) + 51 FROM products
+ON DUPLICATE KEY UPDATE gen_value = GREATEST(gen_value, VALUES(gen_value));
+
+INSERT INTO id_generators (gen_name, gen_value)
+SELECT 'product_images', COALESCE(MAX(id), 0) + 51 FROM product_images
+ON DUPLICATE KEY UPDATE gen_value = GREATEST(gen_value, VALUES(gen_value));
@@ -0,0 +1,8 @@
+-- Orders and order items switch to the pooled id_generators table (allocationSize = 50)
+INSERT INTO id_generators (gen_name, gen_value)
+SELECT 'orders', COALESCE(MAX(id), 0) + 51 FROM orders
+ON DUPLICATE KEY UPDATE gen_value = GREATEST(gen_value, VALUES(gen_value));
+
+INSERT INTO id_generators (gen_name, gen_value)
+SELECT 'order_items', COALESCE(MAX(id), 0) + 51 FROM order_items
+ON DUPLICATE KEY UPDATE gen_value = GREATEST(gen_value, VALUES(gen_value));
@@ -0,0 +1,2 @@
+-- Overdue rental scan: range + keyset on (expected_return_date, id)
+CREATE INDEX idx_orders_expected_return_date ON orders (expected_return_date, id);
@@ -0,0 +1,2 @@
+-- Buyer order history: keyset on (created_at, id) per buyer
+CREATE INDEX idx_orders_buyer_created_at_id ON orders (buyer_id, created_at, id);
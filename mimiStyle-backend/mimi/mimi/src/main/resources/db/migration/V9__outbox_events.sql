@@ -0,0 +1,18 @@
+-- Transactional outbox for order lifecycle events
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT NOT NULL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000),
+    created_at DATETIME(6),
+    dispatched_at DATETIME(6)
+);
+CREATE INDEX idx_outbox_events_status_next_attempt ON outbox_events (status, next_attempt_at, id);
+
+INSERT INTO id_generators (gen_name, gen_value)
+SELECT 'outbox_events', COALESCE(MAX(id), 0) + 51 FROM outbox_events
+ON DUPLICATE KEY UPDATE gen_value = GREATEST(gen_value, VALUES(gen_value));
@@ -0,0 +1,69 @@
+package com.mimi.export;
+
+import com.mimi.domain.enums.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvSheetWriterTest {
+
+    private static String write(List<?>... rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SheetWriter writer = ExportFormat.CSV.open(out, "ignored");
+        for (List<?> row : rows) {
+            writer.writeRow(row);
+        }
+        writer.finish();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void startsWithBomAndEndsRowsWithCrlf() throws IOException {
+        assertEquals("\uFEFFMã,Tên\r\n1,Xe đẩy\r\n", write(List.of("Mã", "Tên"), List.of(1L, "Xe đẩy")));
+    }
+
+    @Test
+    void emptyExportIsJustTheBom() throws IOException {
+        assertEquals("\uFEFF", write());
+    }
+
+    @Test
+    void quotesFieldsWithSeparatorsQuotesAndNewlines() throws IOException {
+        String csv = write(List.of("a,b", "say \"hi\"", "line1\nline2", "plain"));
+
+        assertEquals("\uFEFF\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\",plain\r\n", csv);
+    }
+
+    @Test
+    void prefixesFormulaLikeText() throws IOException {
+        String csv = write(List.of("=SUM(A1:A2)", "+1", "-x", "@cmd", "ok"));
+
+        assertEquals("\uFEFF'=SUM(A1:A2),'+1,'-x,'@cmd,ok\r\n", csv);
+    }
+
+    @Test
+    void formatsNumbersDatesEnumsAndNulls() throws IOException {
+        String csv = write(Arrays.asList(new BigDecimal("1E+6"), -5, LocalDate.of(2026, 3, 1),
+                LocalDateTime.of(2026, 3, 1, 8, 30), OrderStatus.COMPLETED, null));
+
+        // Số âm là ô số nên không bị thêm dấu '
+        assertEquals("\uFEFF1000000,-5,2026-03-01,2026-03-01 08:30:00,COMPLETED,\r\n", csv);
+    }
+
+    @Test
+    void parsesFormatIgnoringCase() {
+        assertEquals(ExportFormat.CSV, ExportFormat.parse(null));
+        assertEquals(ExportFormat.XLSX, ExportFormat.parse(" XLSX "));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.parse("pdf"));
+    }
+}
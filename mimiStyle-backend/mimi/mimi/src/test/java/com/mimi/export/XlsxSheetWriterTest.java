@@ -0,0 +1,93 @@
+package com.mimi.export;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XlsxSheetWriterTest {
+
+    private static Map<String, byte[]> write(String sheetName, List<?>... rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SheetWriter writer = ExportFormat.XLSX.open(out, sheetName);
+        for (List<?> row : rows) {
+            writer.writeRow(row);
+        }
+        writer.finish();
+
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private static Document parse(byte[] xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    @Test
+    void writesAllPackageParts() throws Exception {
+        Map<String, byte[]> entries = write("Doanh thu", List.of("a"));
+
+        assertTrue(entries.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/worksheets/sheet1.xml")));
+        for (byte[] part : entries.values()) {
+            parse(part);
+        }
+    }
+
+    @Test
+    void writesNumbersAsNumericCellsAndTextAsInlineStrings() throws Exception {
+        Map<String, byte[]> entries = write("Sheet",
+                List.of("Tên", "Giá"),
+                Arrays.asList("Xe <đẩy> & ghế", new BigDecimal("150000.50"), null));
+
+        NodeList rows = parse(entries.get("xl/worksheets/sheet1.xml")).getElementsByTagName("row");
+        assertEquals(2, rows.getLength());
+        Element second = (Element) rows.item(1);
+        assertEquals("2", second.getAttribute("r"));
+        NodeList cells = second.getElementsByTagName("c");
+        assertEquals(3, cells.getLength());
+        assertEquals("inlineStr", ((Element) cells.item(0)).getAttribute("t"));
+        assertEquals("Xe <đẩy> & ghế", cells.item(0).getTextContent());
+        assertEquals("", ((Element) cells.item(1)).getAttribute("t"));
+        assertEquals("150000.50", cells.item(1).getTextContent());
+        assertEquals("", cells.item(2).getTextContent());
+    }
+
+    @Test
+    void escapesSheetNameAndDropsInvalidControlCharacters() throws Exception {
+        Map<String, byte[]> entries = write("A & \"B\"", List.of("x\u0001y"));
+
+        Element sheet = (Element) parse(entries.get("xl/workbook.xml")).getElementsByTagName("sheet").item(0);
+        assertEquals("A & \"B\"", sheet.getAttribute("name"));
+        assertEquals("xy", parse(entries.get("xl/worksheets/sheet1.xml"))
+                .getElementsByTagName("t").item(0).getTextContent());
+    }
+
+    @Test
+    void emptyExportIsStillAValidWorkbook() throws Exception {
+        Map<String, byte[]> entries = write("Sheet");
+
+        assertEquals(0, parse(entries.get("xl/worksheets/sheet1.xml")).getElementsByTagName("row").getLength());
+    }
+}
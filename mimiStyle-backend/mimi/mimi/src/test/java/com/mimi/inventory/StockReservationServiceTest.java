@@ -0,0 +1,126 @@
+package com.mimi.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StockReservationServiceTest {
+
+    /** product_variants.stock_quantity trong bộ nhớ, hiểu đúng các câu SQL mà service dùng. */
+    static class FakeJdbcTemplate extends JdbcTemplate {
+        final Map<Long, Integer> stock = new HashMap<>();
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            Integer value = stock.get((Long) args[0]);
+            return value == null ? List.of() : List.of(elementType.cast(value));
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            int qty = (Integer) args[0];
+            Long id = (Long) args[1];
+            Integer current = stock.get(id);
+            if (current == null) {
+                return 0;
+            }
+            if (sql.contains("stock_quantity - ?")) {
+                if (current < (Integer) args[2]) {
+                    return 0;
+                }
+                stock.put(id, current - qty);
+            } else {
+                stock.put(id, current + qty);
+            }
+            return 1;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            int[] result = new int[batchArgs.size()];
+            for (int i = 0; i < batchArgs.size(); i++) {
+                result[i] = update(sql, batchArgs.get(i));
+            }
+            return result;
+        }
+    }
+
+    private FakeJdbcTemplate jdbc;
+    private StockReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new FakeJdbcTemplate();
+        jdbc.stock.put(1L, 5);
+        jdbc.stock.put(2L, 1);
+        service = new StockReservationService(jdbc, 300);
+    }
+
+    @Test
+    void reserveIsAllOrNothing() {
+        assertThrows(IllegalArgumentException.class, () -> service.reserve(Map.of(1L, 2, 2L, 3)));
+        assertEquals(5, service.available(1L));
+        assertEquals(1, service.available(2L));
+    }
+
+    @Test
+    void releasedHoldReturnsStock() {
+        StockReservationService.Hold hold = service.reserve(Map.of(1L, 4));
+        assertEquals(1, service.available(1L));
+        service.release(hold);
+        assertEquals(5, service.available(1L));
+    }
+
+    @Test
+    void confirmedHoldIsFlushedToDatabase() {
+        service.confirm(service.reserve(Map.of(1L, 3)));
+        assertEquals(5, jdbc.stock.get(1L));
+        service.flush();
+        assertEquals(2, jdbc.stock.get(1L));
+        assertEquals(2, service.available(1L));
+        assertEquals(0, service.getOversoldUnits());
+    }
+
+    @Test
+    void flushClampsToDatabaseStockAndRecordsOversell() {
+        service.confirm(service.reserve(Map.of(1L, 3)));
+        // Tồn kho bị sửa ngoài service trước khi flush
+        jdbc.stock.put(1L, 1);
+        service.flush();
+        assertEquals(0, jdbc.stock.get(1L));
+        assertEquals(2, service.getOversoldUnits());
+        assertEquals(0, service.available(1L));
+        // Không còn gì chờ flush: lần flush sau không trừ thêm
+        service.flush();
+        assertEquals(0, jdbc.stock.get(1L));
+    }
+
+    @Test
+    void reloadAfterOversellKeepsOpenHolds() {
+        service.confirm(service.reserve(Map.of(1L, 3)));
+        StockReservationService.Hold open = service.reserve(Map.of(1L, 1));
+        jdbc.stock.put(1L, 2);
+        service.flush();
+        assertEquals(0, jdbc.stock.get(1L));
+        assertEquals(1, service.getOversoldUnits());
+        // DB 0, hold 1 chưa xác nhận vẫn đang chiếm hàng
+        assertEquals(-1, service.available(1L));
+        service.release(open);
+        assertEquals(0, service.available(1L));
+    }
+
+    @Test
+    void restockIsWrittenBack() {
+        service.restock(Map.of(2L, 4));
+        assertEquals(5, service.available(2L));
+        service.flush();
+        assertEquals(5, jdbc.stock.get(2L));
+    }
+}
@@ -0,0 +1,99 @@
+package com.mimi.rental;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private static IntervalTree.Interval interval(int startDay, int endDay, long orderId) {
+        return new IntervalTree.Interval(T0.plusDays(startDay), T0.plusDays(endDay), orderId);
+    }
+
+    @Test
+    void findsOverlapButNotTouchingIntervals() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(interval(0, 3, 1L));
+        tree.insert(interval(5, 8, 2L));
+
+        assertNull(tree.findOverlap(T0.plusDays(3), T0.plusDays(5), null));
+        assertEquals(2L, tree.findOverlap(T0.plusDays(4), T0.plusDays(6), null).orderId());
+        assertNull(tree.findOverlap(T0.plusDays(4), T0.plusDays(6), 2L));
+        assertEquals(2, tree.overlapping(T0.plusDays(2), T0.plusDays(6)).size());
+    }
+
+    @Test
+    void removeDropsDuplicateKeysMovedLeftByRotation() {
+        IntervalTree tree = new IntervalTree();
+        // Hai khoảng trùng khóa (cùng đơn, cùng start); khoảng thứ ba làm cây xoay trái, đẩy bản đầu sang cây con trái
+        tree.insert(interval(0, 2, 1L));
+        tree.insert(interval(0, 4, 1L));
+        tree.insert(interval(10, 12, 2L));
+
+        tree.remove(T0, 1L);
+
+        assertEquals(1, tree.size());
+        assertNull(tree.findOverlap(T0, T0.plusDays(5), null));
+        assertNotNull(tree.findOverlap(T0.plusDays(11), T0.plusDays(13), null));
+    }
+
+    @Test
+    void duplicateStartsFromDifferentOrdersAreRemovedIndependently() {
+        IntervalTree tree = new IntervalTree();
+        for (long orderId = 1; orderId <= 20; orderId++) {
+            tree.insert(interval(0, 3, orderId));
+        }
+
+        tree.remove(T0, 7L);
+
+        assertEquals(19, tree.size());
+        List<IntervalTree.Interval> overlapping = tree.overlapping(T0, T0.plusDays(1));
+        assertEquals(19, overlapping.size());
+        assertTrue(overlapping.stream().noneMatch(i -> i.orderId() == 7L));
+    }
+
+    @Test
+    void matchesBruteForceAfterRandomInsertsAndRemoves() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<IntervalTree.Interval> expected = new ArrayList<>();
+
+        for (int step = 0; step < 2000; step++) {
+            if (expected.isEmpty() || random.nextInt(3) != 0) {
+                int start = random.nextInt(60);
+                // Ít đơn, ít ngày bắt đầu để có nhiều khóa trùng
+                IntervalTree.Interval added = interval(start, start + 1 + random.nextInt(10), 1L + random.nextInt(5));
+                tree.insert(added);
+                expected.add(added);
+            } else {
+                IntervalTree.Interval victim = expected.get(random.nextInt(expected.size()));
+                tree.remove(victim.start(), victim.orderId());
+                expected.removeIf(i -> i.start().equals(victim.start()) && i.orderId().equals(victim.orderId()));
+            }
+            assertEquals(expected.size(), tree.size());
+
+            int from = random.nextInt(70);
+            LocalDateTime qStart = T0.plusDays(from);
+            LocalDateTime qEnd = T0.plusDays(from + 1 + random.nextInt(5));
+            List<IntervalTree.Interval> want = expected.stream()
+                    .filter(i -> i.start().isBefore(qEnd) && qStart.isBefore(i.end()))
+                    .sorted(Comparator.comparing(IntervalTree.Interval::start))
+                    .toList();
+            List<IntervalTree.Interval> got = tree.overlapping(qStart, qEnd);
+            assertEquals(want.size(), got.size());
+            assertTrue(got.containsAll(want));
+            assertEquals(want.isEmpty(), tree.findOverlap(qStart, qEnd, null) == null);
+        }
+    }
+}
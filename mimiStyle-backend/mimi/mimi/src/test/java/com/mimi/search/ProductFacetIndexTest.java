@@ -0,0 +1,110 @@
+package com.mimi.search;
+
+import com.mimi.domain.Category;
+import com.mimi.domain.Product;
+import com.mimi.domain.enums.ProductStatus;
+import com.mimi.domain.enums.TradeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    private static Product product(long id, long categoryId, TradeType tradeType, int condition, long buyPrice) {
+        Category category = new Category();
+        category.setId(categoryId);
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setTradeType(tradeType);
+        product.setStatus(ProductStatus.ACTIVE);
+        product.setConditionPercentage(condition);
+        product.setBuyPrice(BigDecimal.valueOf(buyPrice));
+        return product;
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Chỉ dùng index/remove/query nên không cần repository
+        index = new ProductFacetIndex(null);
+        index.index(product(1L, 10L, TradeType.BUY_ONLY, 95, 200_000L));
+        index.index(product(2L, 10L, TradeType.RENT_ONLY, 80, 600_000L));
+        index.index(product(3L, 20L, TradeType.BOTH, 95, 50_000L));
+        index.index(product(4L, 20L, TradeType.BUY_ONLY, 40, 2_000_000L));
+    }
+
+    @Test
+    void emptyFilterReturnsNewestFirst() {
+        ProductFacetIndex.Result result = index.query(new ProductFacetFilter(), 0, 10);
+
+        assertEquals(List.of(4L, 3L, 2L, 1L), result.productIds());
+        assertEquals(4, result.total());
+    }
+
+    @Test
+    void valuesOfOneFacetAreOredAndFacetsAreAnded() {
+        ProductFacetFilter filter = new ProductFacetFilter();
+        filter.setTradeTypes(List.of(TradeType.BUY_ONLY, TradeType.BOTH));
+        filter.setCategoryIds(List.of(20L));
+
+        ProductFacetIndex.Result result = index.query(filter, 0, 10);
+
+        assertEquals(List.of(4L, 3L), result.productIds());
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnSelection() {
+        ProductFacetFilter filter = new ProductFacetFilter();
+        filter.setCategoryIds(List.of(10L));
+        filter.setConditionBands(List.of("90-100"));
+
+        ProductFacetIndex.Result result = index.query(filter, 0, 10);
+
+        assertEquals(List.of(1L), result.productIds());
+        // Category đếm với lọc condition: cả hai danh mục đều có một sản phẩm 90-100
+        assertEquals(1, result.facets().get(ProductFacetIndex.CATEGORY).get("10"));
+        assertEquals(1, result.facets().get(ProductFacetIndex.CATEGORY).get("20"));
+        // Condition đếm với lọc category 10
+        assertEquals(1, result.facets().get(ProductFacetIndex.CONDITION).get("70-89"));
+        assertEquals(0, result.facets().get(ProductFacetIndex.CONDITION).get("0-49"));
+    }
+
+    @Test
+    void priceRangeFiltersOnExactPrice() {
+        ProductFacetFilter filter = new ProductFacetFilter();
+        filter.setMinBuyPrice(BigDecimal.valueOf(200_000L));
+        filter.setMaxBuyPrice(BigDecimal.valueOf(600_000L));
+
+        assertEquals(List.of(2L, 1L), index.query(filter, 0, 10).productIds());
+    }
+
+    @Test
+    void reindexMovesProductAndRemoveHidesIt() {
+        index.index(product(1L, 20L, TradeType.BUY_ONLY, 95, 200_000L));
+        index.remove(3L);
+
+        ProductFacetFilter filter = new ProductFacetFilter();
+        filter.setCategoryIds(List.of(20L));
+        ProductFacetIndex.Result result = index.query(filter, 0, 10);
+
+        // Ordinal giữ nguyên khi cập nhật nên sản phẩm 1 vẫn xếp sau cùng
+        assertEquals(List.of(4L, 1L), result.productIds());
+        // Danh mục 10 chỉ còn sản phẩm 2
+        assertEquals(1, result.facets().get(ProductFacetIndex.CATEGORY).get("10"));
+        assertEquals(2, result.facets().get(ProductFacetIndex.CATEGORY).get("20"));
+    }
+
+    @Test
+    void pagesWithOffsetAndLimit() {
+        ProductFacetIndex.Result result = index.query(new ProductFacetFilter(), 1, 2);
+
+        assertEquals(List.of(3L, 2L), result.productIds());
+        assertEquals(4, result.total());
+    }
+}
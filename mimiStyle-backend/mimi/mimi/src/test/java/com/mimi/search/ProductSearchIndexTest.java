@@ -0,0 +1,80 @@
+package com.mimi.search;
+
+import com.mimi.domain.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    private static Product product(long id, String name, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        return product;
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Chỉ dùng index/remove/search nên không cần repository
+        index = new ProductSearchIndex(null);
+    }
+
+    @Test
+    void matchesWithoutDiacritics() {
+        index.index(product(1L, "Xe đẩy em bé", "Gấp gọn, nhẹ"));
+        index.index(product(2L, "Ghế ăn dặm", "Chất liệu nhựa"));
+
+        assertEquals(List.of(1L), index.search("xe day", 10));
+        assertEquals(List.of(1L), index.search("XE ĐẨY", 10));
+        assertEquals(List.of(2L), index.search("ghe an dam", 10));
+    }
+
+    @Test
+    void nameMatchRanksAboveDescriptionMatch() {
+        index.index(product(1L, "Nôi điện", "Dùng kèm xe đẩy"));
+        index.index(product(2L, "Xe đẩy gấp gọn", "Khung nhôm"));
+
+        assertEquals(List.of(2L, 1L), index.search("xe đẩy", 10));
+    }
+
+    @Test
+    void rareTermsWeighMoreThanCommonOnes() {
+        index.index(product(1L, "Áo sơ sinh cotton", null));
+        index.index(product(2L, "Áo len", null));
+        index.index(product(3L, "Áo khoác", null));
+
+        // "áo" có ở mọi sản phẩm, "len" chỉ có ở một
+        assertEquals(2L, index.search("áo len", 10).get(0));
+    }
+
+    @Test
+    void reindexReplacesOldTermsAndRemoveDropsDocument() {
+        index.index(product(1L, "Xe đẩy", null));
+        index.index(product(1L, "Bình sữa", null));
+
+        assertTrue(index.search("xe", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("bình sữa", 10));
+
+        index.remove(1L);
+        assertTrue(index.search("bình sữa", 10).isEmpty());
+    }
+
+    @Test
+    void respectsLimitAndBreaksTiesById() {
+        for (long id = 5; id >= 1; id--) {
+            index.index(product(id, "Tã dán", null));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), index.search("tã", 3));
+        assertTrue(index.search("tã", 0).isEmpty());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package com.mimi.storage;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExifOrientationTest {
+
+    private static final int RED = 0xFF0000;
+    private static final int BLUE = 0x0000FF;
+
+    /** JPEG 8x4 có segment APP1 EXIF với tag Orientation, theo byte order little/big endian. */
+    private static Path jpegWithOrientation(int orientation, boolean littleEndian) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(8, 4, BufferedImage.TYPE_INT_RGB), "jpeg", jpeg);
+        byte[] image = jpeg.toByteArray();
+
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.writeBytes(littleEndian ? new byte[] { 'I', 'I', 42, 0, 8, 0, 0, 0 } : new byte[] { 'M', 'M', 0, 42, 0, 0, 0, 8 });
+        // Một entry: tag 0x0112, kiểu SHORT (3), count 1, giá trị orientation
+        tiff.writeBytes(littleEndian ? new byte[] { 1, 0 } : new byte[] { 0, 1 });
+        tiff.writeBytes(littleEndian
+                ? new byte[] { 0x12, 0x01, 3, 0, 1, 0, 0, 0, (byte) orientation, 0, 0, 0 }
+                : new byte[] { 0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0 });
+        tiff.writeBytes(new byte[4]);
+
+        byte[] exif = tiff.toByteArray();
+        int length = 2 + 6 + exif.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(image, 0, 2);
+        out.writeBytes(new byte[] { (byte) 0xFF, (byte) 0xE1, (byte) (length >> 8), (byte) length });
+        out.writeBytes(new byte[] { 'E', 'x', 'i', 'f', 0, 0 });
+        out.writeBytes(exif);
+        out.write(image, 2, image.length - 2);
+
+        Path file = Files.createTempFile("exif", ".jpg");
+        file.toFile().deleteOnExit();
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+    @Test
+    void readsOrientationInBothByteOrders() throws IOException {
+        assertEquals(6, ExifOrientation.read(jpegWithOrientation(6, true)));
+        assertEquals(8, ExifOrientation.read(jpegWithOrientation(8, false)));
+    }
+
+    @Test
+    void jpegWithoutExifIsNormal() throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "jpeg", jpeg);
+        Path file = Files.createTempFile("plain", ".jpg");
+        file.toFile().deleteOnExit();
+        Files.write(file, jpeg.toByteArray());
+
+        assertEquals(ExifOrientation.NORMAL, ExifOrientation.read(file));
+    }
+
+    @Test
+    void rotatesClockwiseForOrientationSix() {
+        // Ảnh 3x2, điểm đỏ ở góc trên-trái, điểm xanh ở góc trên-phải
+        BufferedImage source = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, RED);
+        source.setRGB(2, 0, BLUE);
+
+        BufferedImage rotated = ExifOrientation.apply(source, 6);
+
+        assertEquals(2, rotated.getWidth());
+        assertEquals(3, rotated.getHeight());
+        // Xoay 90° theo chiều kim đồng hồ: trên-trái → trên-phải, trên-phải → dưới-phải
+        assertEquals(RED, rotated.getRGB(1, 0) & 0xFFFFFF);
+        assertEquals(BLUE, rotated.getRGB(1, 2) & 0xFFFFFF);
+    }
+
+    @Test
+    void rotatesCounterClockwiseForOrientationEightAndHalfTurnForThree() {
+        BufferedImage source = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, RED);
+
+        assertEquals(RED, ExifOrientation.apply(source, 8).getRGB(0, 2) & 0xFFFFFF);
+        assertEquals(RED, ExifOrientation.apply(source, 3).getRGB(2, 1) & 0xFFFFFF);
+    }
+
+    @Test
+    void normalOrientationReturnsSameImage() {
+        BufferedImage source = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+
+        assertEquals(source, ExifOrientation.apply(source, ExifOrientation.NORMAL));
+    }
+}